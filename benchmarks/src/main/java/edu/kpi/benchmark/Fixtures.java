@@ -0,0 +1,41 @@
+package edu.kpi.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic inputs checked in under {@code fixtures/}, each in a small, medium and large size:
+ * extracted thesis text of about 40k, 170k and 550k characters and pdfinfo struct-text dumps
+ * of about 30k, 125k and 390k characters.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    public static String thesisText(String size) {
+
+        return read("/fixtures/thesis-" + size + ".txt");
+    }
+
+    public static String structText(String size) {
+
+        return read("/fixtures/struct-text-" + size + ".txt");
+    }
+
+    private static String read(String resource) {
+
+        try (InputStream input = Fixtures.class.getResourceAsStream(resource)) {
+
+            if (input == null) throw new IllegalArgumentException("No fixture " + resource);
+
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+}
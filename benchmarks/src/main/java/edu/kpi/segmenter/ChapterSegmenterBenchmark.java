@@ -0,0 +1,172 @@
+package edu.kpi.segmenter;
+
+import edu.kpi.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stages of {@link ChapterSegmenter} on extracted thesis text.
+ * {@code legacySegment} is the regex chain the segmenter replaced and serves as the in-tree baseline; every trial
+ * first checks that both split the fixture into the same chapters, so a speed-up that changes the output fails.
+ * The in-place stages work on a fresh copy of their input, so {@code copyBody} is listed for reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChapterSegmenterBenchmark {
+
+    private static final Pattern DOCUMENT_START_PATTERN = Pattern.compile("^\\s*[0-9.]*\\s*(РЕФЕРАТ|АНОТАЦІЯ)\\s*$", Pattern.MULTILINE);
+    private static final Pattern DOCUMENT_END_PATTERN = Pattern.compile("^[0-9.]*\\s*(СПИСОК\\s+(ЛІТЕРАТУРИ|.*ДЖЕРЕЛ)|ПЕРЕЛІК\\s+(ПОСИЛАНЬ|.*ДЖЕРЕЛ)|ВИКОРИСТАН.*ЛІТЕРАТУРА|ДЖЕРЕЛА)\\s*$", Pattern.MULTILINE);
+    private static final Pattern HEADER_PATTERN = Pattern.compile("^\\s*[0-9.]*\\s*([А-ЯІЄЇ]{5,}[А-ЯІЄЇ, \n]*)\\s*$", Pattern.MULTILINE);
+    private static final String SPLIT_HEADER_REGEX = "([А-ЯІЄЇ, ]{30,})(\n)([А-ЯІЄЇ, ]{5,})";
+    private static final String SPLIT_HEADER_REPLACEMENT = "$1 $3";
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private final ChapterSegmenter segmenter = new ChapterSegmenter();
+
+    private String text;
+    private int start;
+    private int end;
+    private String cleanedBody;
+    private String joinedBody;
+
+    @Setup
+    public void setUp() {
+
+        text = Fixtures.thesisText(size);
+        start = segmenter.findStart(text);
+        end = segmenter.findEnd(text, start);
+
+        final StringBuilder body = segmenter.cleanUpBreaks(text, start, end);
+        cleanedBody = body.toString();
+
+        segmenter.joinSplitHeaders(body);
+        joinedBody = body.toString();
+
+        checkEquivalence();
+    }
+
+    /**
+     * @throws IllegalStateException when {@link #segment()} and {@link #legacySegment()} differ in a chapter title,
+     * text or order
+     */
+    public void checkEquivalence() {
+
+        final List<Map.Entry<String, String>> chapters = List.copyOf(segment().entrySet());
+        final List<Map.Entry<String, String>> legacyChapters = List.copyOf(legacySegment().entrySet());
+
+        if (!chapters.equals(legacyChapters)) {
+
+            throw new IllegalStateException("segment and legacySegment differ on the " + size + " fixture: "
+                    + chapters.size() + " and " + legacyChapters.size() + " chapters");
+        }
+    }
+
+    @Benchmark
+    public int findStart() {
+
+        return segmenter.findStart(text);
+    }
+
+    @Benchmark
+    public int findEnd() {
+
+        return segmenter.findEnd(text, start);
+    }
+
+    @Benchmark
+    public StringBuilder cleanUpBreaks() {
+
+        return segmenter.cleanUpBreaks(text, start, end);
+    }
+
+    @Benchmark
+    public StringBuilder copyBody() {
+
+        return new StringBuilder(cleanedBody);
+    }
+
+    @Benchmark
+    public StringBuilder joinSplitHeaders() {
+
+        final StringBuilder body = new StringBuilder(cleanedBody);
+
+        segmenter.joinSplitHeaders(body);
+
+        return body;
+    }
+
+    @Benchmark
+    public Map<String, Integer> getHeaders() {
+
+        return segmenter.getHeaders(joinedBody);
+    }
+
+    @Benchmark
+    public Map<String, String> segment() {
+
+        return segmenter.segment(text);
+    }
+
+    @Benchmark
+    public Map<String, String> legacySegment() {
+
+        final Matcher startMatcher = DOCUMENT_START_PATTERN.matcher(text);
+
+        if (!startMatcher.find()) throw new IllegalArgumentException("No document start found");
+
+        final String legacyText = text.substring(startMatcher.start());
+        final Matcher endMatcher = DOCUMENT_END_PATTERN.matcher(legacyText);
+        int lastMatchIndex = 0;
+
+        while (endMatcher.find()) {
+
+            lastMatchIndex = endMatcher.end();
+        }
+
+        final String body = legacyText.substring(0, lastMatchIndex)
+                .replaceAll("(\\s\n)+", "\n")
+                .replaceAll(SPLIT_HEADER_REGEX, SPLIT_HEADER_REPLACEMENT);
+
+        final Map<String, Integer> headers = new LinkedHashMap<>();
+        final Matcher headerMatcher = HEADER_PATTERN.matcher(body);
+
+        while (headerMatcher.find()) {
+
+            headers.put(headerMatcher.group().replace("\n", "").trim(), headerMatcher.start());
+        }
+
+        final List<String> headerList = new ArrayList<>(headers.keySet());
+        final List<Integer> headerIndexes = new ArrayList<>(headers.values());
+        final Map<String, String> result = new LinkedHashMap<>();
+
+        for (int index = 0; index < headerIndexes.size() - 1; index++) {
+
+            result.put(headerList.get(index), body.substring(headerIndexes.get(index), headerIndexes.get(index + 1)).replace("\n", " "));
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,117 @@
+package edu.kpi.segmenter;
+
+import edu.kpi.benchmark.Fixtures;
+import edu.kpi.matcher.LiteralStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Stages of {@link StructTextSegmenter} on pdfinfo {@code -struct-text} dumps.
+ * {@code legacyStripTokens} is the per-token {@code replaceAll} loop that {@link LiteralStripper} replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructTextSegmenterBenchmark {
+
+    private static final String TEXT_QUOTE = "\"";
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private final StructTextSegmenter segmenter = new StructTextSegmenter();
+
+    private String structText;
+    private Set<String> structTokens;
+    private LiteralStripper stripper;
+    private String strippedContent;
+    private List<Integer> topLevelHeaderIndexes;
+    private String largestChapter;
+    private String cleanedChapter;
+
+    @Setup
+    public void setUp() {
+
+        structText = Fixtures.structText(size);
+        structTokens = new HashSet<>();
+
+        for (String line : structText.split("\n")) {
+
+            if (!line.stripLeading().startsWith(TEXT_QUOTE)) structTokens.add(line);
+        }
+
+        stripper = new LiteralStripper(structTokens);
+        strippedContent = segmenter.stripContentToTableOfContents(structText);
+        topLevelHeaderIndexes = segmenter.getTopLevelHeaderIndexes(strippedContent);
+
+        largestChapter = IntStream.range(0, topLevelHeaderIndexes.size() - 1)
+                .mapToObj(i -> strippedContent.substring(topLevelHeaderIndexes.get(i), topLevelHeaderIndexes.get(i + 1)))
+                .max(Comparator.comparingInt(String::length))
+                .orElseThrow();
+
+        cleanedChapter = segmenter.cleanupChapter(largestChapter, new LiteralStripper(List.of()));
+    }
+
+    @Benchmark
+    public LiteralStripper buildStripper() {
+
+        return new LiteralStripper(structTokens);
+    }
+
+    @Benchmark
+    public Map<String, String> getChapters() {
+
+        return segmenter.getChapters(strippedContent, topLevelHeaderIndexes, stripper);
+    }
+
+    @Benchmark
+    public String cleanupChapter() {
+
+        return segmenter.cleanupChapter(largestChapter, stripper);
+    }
+
+    @Benchmark
+    public String stripTokens() {
+
+        return stripper.strip(cleanedChapter);
+    }
+
+    @Benchmark
+    public String legacyStripTokens() {
+
+        String result = cleanedChapter;
+
+        for (var token : structTokens) {
+
+            result = result.replaceAll(token, "");
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, String> segment() {
+
+        return segmenter.segment(structText, structTokens);
+    }
+}
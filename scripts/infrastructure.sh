@@ -2,6 +2,7 @@
 PROJECT_ID="diploma-llm"
 BUCKET_NAME="llm-converted-documents"
 INSTANCE_NAME="document-converter"
+INSTANCE_COUNT=1 # instances sharing the collection, each converting its own shard
 REGION="europe-west4"
 ZONE="europe-west4-a" # Change as per your preference
 MACHINE_TYPE="e2-standard-4" # Change as per your requirements
@@ -34,8 +35,10 @@ gsutil mb -l $REGION gs://$BUCKET_NAME/
 # Set default ACLs or IAM policies as needed
 # gsutil iam ch <members>:<role> gs://$BUCKET_NAME
 
-# Create a Compute Engine instance
-gcloud compute instances create $INSTANCE_NAME \
+# Create the Compute Engine instances, one shard of the documents each
+# (use assignment=lease:<minutes> instead to let instances claim documents as they go)
+for ((i = 0; i < INSTANCE_COUNT; i++)); do
+gcloud compute instances create $INSTANCE_NAME-$i \
     --zone=$ZONE \
     --machine-type=$MACHINE_TYPE \
     --image-family=$IMAGE_FAMILY \
@@ -43,8 +46,12 @@ gcloud compute instances create $INSTANCE_NAME \
     --boot-disk-size=100GB \
     --boot-disk-type=pd-ssd \
     --scopes=https://www.googleapis.com/auth/cloud-platform \
-    --metadata-from-file startup-script=$STARTUP_SCRIPT
+    --provisioning-model=SPOT \
+    --instance-termination-action=STOP \
+    --metadata-from-file startup-script=$STARTUP_SCRIPT \
+    --metadata assignment=shard:$i/$INSTANCE_COUNT
+done
 
 # Output the external IP address
 echo "Instance created. To access it, use the following command:"
-echo "gcloud compute ssh $INSTANCE_NAME --zone $ZONE"
+echo "gcloud compute ssh $INSTANCE_NAME-0 --zone $ZONE"
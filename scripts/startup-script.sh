@@ -21,6 +21,12 @@ DATABASE_ID="(default)"
 COLLECTION_ID="raw-documents"
 RETRIES=3
 BATCH_SIZE=100
+ENGINES="chapters" # comma-separated: chapters,structure,text; structure writes structureChapters, not chapters
+BACKEND="gcp"
+# all, shard:<index>/<count> or lease:<minutes>; set per instance by infrastructure.sh
+CACHE="local" # local, or shared to also cache engine results under cache/ in the target bucket
+METRICS_PORT=9400 # Prometheus /metrics endpoint; 0 to only write metrics.json
+ASSIGNMENT=$(curl -sf -H "Metadata-Flavor: Google" "http://metadata.google.internal/computeMetadata/v1/instance/attributes/assignment" || echo "all")
 
 
 # Copy the app.jar from GCS bucket
@@ -31,7 +37,9 @@ cd $APP_DIR
 
 # Run the application
 # (Assuming the application does not need additional parameters or environment variables)
-java -jar converter-app.jar $SOURCE_BUCKET_NAME $TARGET_BUCKET_NAME $PROJECT_ID $DATABASE_ID $COLLECTION_ID $RETRIES $BATCH_SIZE
+# The checkpoint journal is kept in $APP_DIR, so a run restarted after a Spot preemption resumes where it stopped.
+# On preemption the JVM receives SIGTERM and drains in-flight documents before the VM stops.
+java -jar converter-app.jar $SOURCE_BUCKET_NAME $TARGET_BUCKET_NAME $PROJECT_ID $DATABASE_ID $COLLECTION_ID $RETRIES $BATCH_SIZE $ENGINES $BACKEND $ASSIGNMENT $CACHE $METRICS_PORT
 
 # Shutdown the instance after execution is complete
 sudo shutdown -h now
\ No newline at end of file
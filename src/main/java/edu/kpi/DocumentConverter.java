@@ -1,78 +1,310 @@
 package edu.kpi;
 
-import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 import com.google.cloud.storage.contrib.nio.CloudStorageConfiguration;
 import com.google.cloud.storage.contrib.nio.CloudStorageFileSystem;
-import edu.kpi.task.RegexConversionTask;
+import edu.kpi.cache.BucketCacheTier;
+import edu.kpi.cache.CacheTier;
+import edu.kpi.cache.LocalDiskCacheTier;
+import edu.kpi.cache.ResultCache;
+import edu.kpi.engine.ConversionEngines;
+import edu.kpi.engine.EngineContext;
+import edu.kpi.extractor.ParallelTextExtractor;
+import edu.kpi.extractor.ParserRegistry;
+import edu.kpi.io.BufferPool;
+import edu.kpi.io.PdfDownloader;
+import edu.kpi.journal.CheckpointJournal;
+import edu.kpi.metrics.ConversionMetrics;
+import edu.kpi.metrics.MetricsExport;
+import edu.kpi.metrics.MetricsRegistry;
+import edu.kpi.pipeline.AdaptiveLimiter;
+import edu.kpi.pipeline.MemoryBudget;
+import edu.kpi.pipeline.RetryPolicy;
+import edu.kpi.pipeline.ShutdownDrain;
+import edu.kpi.pipeline.StagedExecutor;
+import edu.kpi.process.ProcessRunner;
+import edu.kpi.shard.HashShardAssignment;
+import edu.kpi.shard.LeaseAssignment;
+import edu.kpi.shard.WorkAssignment;
+import edu.kpi.store.BlobStore;
+import edu.kpi.store.CandidateQuery;
+import edu.kpi.store.DirectoryDocumentStore;
+import edu.kpi.store.DocumentRecord;
+import edu.kpi.store.DocumentStore;
+import edu.kpi.store.EmbeddedDocumentStore;
+import edu.kpi.store.FirestoreDocumentStore;
+import edu.kpi.store.GcsBlobStore;
+import edu.kpi.store.LeasedDocumentStore;
+import edu.kpi.store.LocalBlobStore;
+import edu.kpi.task.EngineConversionTask;
+import edu.kpi.writer.ResultWriter;
 import lombok.SneakyThrows;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 public class DocumentConverter {
 
+    private static final int PROCESS_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int FETCH_THREADS = 4 * PROCESS_THREADS;
+    private static final int MIN_DOWNLOADS = 1;
+    private static final int INITIAL_DOWNLOADS = PROCESS_THREADS;
+    private static final int MAX_DOWNLOADS = FETCH_THREADS;
+    private static final int MIN_WRITES = 10;
+    private static final int INITIAL_WRITES = 100;
+    private static final int MAX_WRITES = 1000;
+    private static final int WRITE_THREADS = 2;
+    private static final int STAGE_QUEUE_CAPACITY = PROCESS_THREADS;
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_OUTSTANDING_WRITE_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_POOLED_BUFFER_BYTES = 32 * 1024 * 1024;
+    private static final long MEMORY_BUDGET_BYTES = Runtime.getRuntime().maxMemory() / 2;
+    // buffers kept in the pool between documents, set aside from the memory budget
+    private static final long MAX_RETAINED_POOL_BYTES = MEMORY_BUDGET_BYTES / 8;
+    private static final long MAX_IN_MEMORY_SOURCE_BYTES = 64 * 1024 * 1024;
+    private static final long MIN_RANGED_READ_BYTES = 32 * 1024 * 1024;
+    private static final int RANGE_READ_THREADS = FETCH_THREADS;
+    private static final int PAGES_PER_CHUNK = 20;
+    private static final int MIN_PAGES_TO_SPLIT = 60;
+    private static final boolean LEARN_REPEATED_BANDS = false;
+    private static final Duration PROCESS_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration RETRY_BASE_DELAY = Duration.ofSeconds(1);
+    private static final Duration RETRY_MAX_DELAY = Duration.ofMinutes(1);
+    private static final Path CACHE_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"), "document-converter-cache");
+    private static final long MAX_CACHE_BYTES = 4L * 1024 * 1024 * 1024;
+    private static final String SHARED_CACHE_PREFIX = "cache/";
+    private static final String SHARED_CACHE = "shared";
+    private static final int JOURNAL_COMPACT_EVERY = 10_000;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(20);
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(8);
+    private static final Path METRICS_SNAPSHOT_FILE = Path.of("metrics.json");
+    private static final Duration METRICS_SNAPSHOT_INTERVAL = Duration.ofSeconds(30);
+    private static final String LOCAL_BACKEND_PREFIX = "local:";
+    private static final String CORPUS_BACKEND_PREFIX = "corpus:";
+    private static final String EMBEDDED_STORE_EXTENSION = ".store";
+    private static final String JSON_LINES_EXTENSION = ".jsonl";
+    private static final String SHARD_ASSIGNMENT_PREFIX = "shard:";
+    private static final String LEASE_ASSIGNMENT_PREFIX = "lease:";
+
     private final String sourceBucketName;
     private final String targetBucketName;
     private final String projectId;
     private final String databaseId;
     private final String collectionId;
-    private final int retries;
+    private final RetryPolicy retryPolicy;
     private final int batchSize;
+    private final String engineNames;
+    private final String backend;
+    private final String assignment;
+    private final String cache;
+    private final int metricsPort;
 
-    public DocumentConverter(String sourceBucketName, String targetBucketName, String projectId, String databaseId, String collectionId, int retries, int batchSize) {
+    /**
+     * @param backend {@code gcp} for Cloud Storage and Firestore, {@code local:<root>} for buckets kept as
+     *                directories under {@code root} and the collection in an embedded store file next to them,
+     *                or {@code corpus:<root>} for the same layout with documents found by walking the source directory;
+     *                there each PDF belongs to the collection named after its top-level directory, for example
+     *                {@code <root>/<source bucket>/Магістерські роботи/...}, unless its stored fields say otherwise
+     * @param assignment {@code all} for a single instance, {@code shard:<index>/<count>} for a fixed share of the
+     *                   documents, or {@code lease:<minutes>} to claim documents one by one with leases of that length
+     * @param cache      {@code local} to cache engine results on this machine's disk, or {@code shared} to also keep
+     *                   them under {@code cache/} in the target bucket, where every instance and later runs find them
+     * @param metricsPort port of the Prometheus {@code /metrics} endpoint, or {@link MetricsExport#NO_PORT} to only
+     *                    write {@code metrics.json}
+     */
+    public DocumentConverter(String sourceBucketName, String targetBucketName, String projectId, String databaseId, String collectionId, int retries, int batchSize,
+                             String engineNames, String backend, String assignment, String cache, int metricsPort) {
 
         this.sourceBucketName = sourceBucketName;
         this.targetBucketName = targetBucketName;
         this.projectId = projectId;
         this.databaseId = databaseId;
         this.collectionId = collectionId;
-        this.retries = retries;
+        this.retryPolicy = new RetryPolicy(retries, RETRY_BASE_DELAY, RETRY_MAX_DELAY);
         this.batchSize = batchSize;
+        this.engineNames = engineNames;
+        this.backend = backend;
+        this.assignment = assignment;
+        this.cache = cache;
+        this.metricsPort = metricsPort;
     }
 
+    @SneakyThrows
     public void convertDocuments() {
 
-        final Firestore database = getDatabase();
-        final CloudStorageFileSystem sourceFileSystem = getFilesystem(sourceBucketName);
-        final CloudStorageFileSystem targetFileSystem = getFilesystem(targetBucketName);
+        final BlobStore sourceStore = getBlobStore(sourceBucketName);
+        final BlobStore targetStore = getBlobStore(targetBucketName);
+        final AdaptiveLimiter downloadLimiter = new AdaptiveLimiter("download", INITIAL_DOWNLOADS, MIN_DOWNLOADS, MAX_DOWNLOADS);
+        final AdaptiveLimiter writeLimiter = new AdaptiveLimiter("write", INITIAL_WRITES, MIN_WRITES, MAX_WRITES);
+        final MemoryBudget memoryBudget = new MemoryBudget(MEMORY_BUDGET_BYTES - MAX_RETAINED_POOL_BYTES);
+        final PdfDownloader downloader = new PdfDownloader(sourceStore, new BufferPool(MAX_RETAINED_POOL_BYTES, MAX_POOLED_BUFFER_BYTES),
+                downloadLimiter, memoryBudget, MAX_IN_MEMORY_SOURCE_BYTES, MIN_RANGED_READ_BYTES, RANGE_READ_THREADS);
+        final ConversionEngines engines = ConversionEngines.load(engineNames);
+        ParserRegistry.warmUp();
+        final ResultCache resultCache = new ResultCache(sourceStore, getCacheTiers(targetStore));
+        final ParallelTextExtractor extractor = new ParallelTextExtractor(new ForkJoinPool(PROCESS_THREADS), PAGES_PER_CHUNK, MIN_PAGES_TO_SPLIT, LEARN_REPEATED_BANDS);
+
+        try (final MetricsExport metricsExport = new MetricsExport(new ConversionMetrics(new MetricsRegistry()),
+                METRICS_SNAPSHOT_FILE, METRICS_SNAPSHOT_INTERVAL, metricsPort);
+             final ShutdownDrain shutdownDrain = new ShutdownDrain(FLUSH_TIMEOUT);
+             final CheckpointJournal journal = new CheckpointJournal(getJournalFile(), JOURNAL_COMPACT_EVERY);
+             final ProcessRunner processRunner = new ProcessRunner(PROCESS_THREADS, PROCESS_TIMEOUT);
+             final DocumentStore documentStore = withLeases(getDocumentStore(sourceStore, writeLimiter, metricsExport.metrics()));
+             final StagedExecutor executor = new StagedExecutor(FETCH_THREADS, PROCESS_THREADS, WRITE_THREADS, STAGE_QUEUE_CAPACITY, batchSize)) {
+
+            final ConversionMetrics metrics = metricsExport.metrics();
+
+            shutdownDrain.onStop(() -> executor.drain(DRAIN_TIMEOUT));
+            metrics.registerQueues(executor.queueDepths(), executor::inFlight);
+            metrics.registerLimiter(downloadLimiter);
+            metrics.registerLimiter(writeLimiter);
+            metrics.registerMemoryBudget(memoryBudget);
+
+            final EngineContext engineContext = new EngineContext(extractor, processRunner, targetStore, metrics);
+
+            final CandidateQuery candidateQuery = engines.candidateQuery();
+            final WorkAssignment workAssignment = getWorkAssignment(documentStore, candidateQuery,
+                    document -> !journal.isFinished(document.id()) && !engines.pending(document).isEmpty());
+
+            String startAfterId = journal.watermark();
+
+            do {
+
+                for (final DocumentRecord document : documentStore.list(candidateQuery, startAfterId)) {
+
+                    if (shutdownDrain.isStopping()) break;
+
+                    final DocumentRecord assigned = workAssignment.assign(document);
+
+                    if (assigned == null) continue;
+
+                    boolean submitted = false;
+
+                    try {
 
-        try (final ExecutorService executorService = Executors.newFixedThreadPool(4)) {
+                        if (journal.admit(assigned.id())) {
 
-            final List<DocumentReference> documentReferences = StreamSupport.stream(database.collection(collectionId)
-                    .listDocuments().spliterator(), Boolean.FALSE).toList();
+                            executor.submit(new EngineConversionTask(engines, engineContext, downloader, resultCache, journal,
+                                    workAssignment, assigned, documentStore, retryPolicy));
+                            submitted = true;
+                        }
 
-            IntStream.range(0, documentReferences.size())
-                    .boxed()
-                    .collect(Collectors.groupingBy(i -> i / batchSize,
-                            Collectors.mapping(documentReferences::get, Collectors.toList())))
-                    .values()
-                    .forEach(batch -> convertBatch(executorService, sourceFileSystem, targetFileSystem, batch));
+                    } finally {
+
+                        if (!submitted) {
+
+                            workAssignment.unassign(assigned);
+                        }
+                    }
+                }
+
+                startAfterId = null;
+
+            } while (!shutdownDrain.isStopping() && workAssignment.awaitRelisting());
         }
     }
 
+    /**
+     * The local disk first, so that only its misses go to the bucket.
+     */
     @SneakyThrows
-    private void convertBatch(ExecutorService executorService, CloudStorageFileSystem sourceFileSystem, CloudStorageFileSystem targetFileSystem, Collection<DocumentReference> batch) {
+    private List<CacheTier> getCacheTiers(BlobStore targetStore) {
+
+        final CacheTier localTier = new LocalDiskCacheTier(CACHE_DIRECTORY, MAX_CACHE_BYTES);
+
+        return SHARED_CACHE.equals(cache)
+                ? List.of(localTier, new BucketCacheTier(targetStore, SHARED_CACHE_PREFIX))
+                : List.of(localTier);
+    }
+
+    /**
+     * One journal per collection and engine selection, in the working directory so it survives a VM restart.
+     */
+    private Path getJournalFile() {
+
+        return Path.of("checkpoint-" + collectionId + "-" + engineNames.replace(',', '+') + ".journal");
+    }
+
+    private BlobStore getBlobStore(String bucket) {
+
+        if (isLocalBackend()) {
+
+            return new LocalBlobStore(getLocalRoot().resolve(bucket), bucket);
+        }
+
+        return new GcsBlobStore(getFilesystem(bucket), getStorage());
+    }
 
-        List<Future<?>> futures = new ArrayList<>();
+    /**
+     * A local store file is created on the first run, from {@code <collection>.jsonl} in the root when there is one.
+     */
+    private DocumentStore getDocumentStore(BlobStore sourceStore, AdaptiveLimiter writeLimiter, ConversionMetrics metrics) {
 
-        batch.stream()
-//                .map(doc -> new PlainTextDocumentConversionTask(sourceFileSystem, targetFileSystem, doc, retries))
-//                .map(doc -> new PdfInfoDocumentConversionTask(sourceFileSystem, doc, retries))
-                .map(doc -> new RegexConversionTask(sourceFileSystem, doc, retries))
-                .map(executorService::submit)
-                .forEach(futures::add);
+        if (isLocalBackend()) {
 
-        for (Future<?> future : futures) future.get();
+            final Path storeFile = getLocalRoot().resolve(collectionId + EMBEDDED_STORE_EXTENSION);
+            final Path importFile = getLocalRoot().resolve(collectionId + JSON_LINES_EXTENSION);
+            final boolean created = !Files.exists(storeFile);
+            final EmbeddedDocumentStore store = new EmbeddedDocumentStore(storeFile);
+
+            if (created && Files.exists(importFile)) {
+
+                store.importJsonLines(importFile);
+            }
+
+            return backend.startsWith(CORPUS_BACKEND_PREFIX)
+                    ? new DirectoryDocumentStore(getLocalRoot().resolve(sourceBucketName), sourceStore, store)
+                    : store;
+        }
+
+        final Firestore database = getDatabase();
+
+        return new FirestoreDocumentStore(database.collection(collectionId), PAGE_SIZE,
+                new ResultWriter(database, MAX_OUTSTANDING_WRITE_BYTES, writeLimiter, retryPolicy), metrics);
+    }
+
+    /**
+     * With leases, results are written through a view of the store that drops the lease in the same update.
+     */
+    private DocumentStore withLeases(DocumentStore store) {
+
+        return assignment.startsWith(LEASE_ASSIGNMENT_PREFIX) ? new LeasedDocumentStore(store, LeaseAssignment.localOwner()) : store;
+    }
+
+    private WorkAssignment getWorkAssignment(DocumentStore documentStore, CandidateQuery candidateQuery, Predicate<DocumentRecord> wanted) {
+
+        if (assignment.startsWith(SHARD_ASSIGNMENT_PREFIX)) {
+
+            final String[] shard = assignment.substring(SHARD_ASSIGNMENT_PREFIX.length()).split("/");
+
+            return new HashShardAssignment(Integer.parseInt(shard[0]), Integer.parseInt(shard[1]));
+        }
+
+        if (documentStore instanceof LeasedDocumentStore leasedStore) {
+
+            final Duration leaseTime = Duration.ofMinutes(Long.parseLong(assignment.substring(LEASE_ASSIGNMENT_PREFIX.length())));
+
+            return new LeaseAssignment(leasedStore, candidateQuery, wanted, leasedStore.owner(), leaseTime);
+        }
+
+        return WorkAssignment.all();
+    }
+
+    private boolean isLocalBackend() {
+
+        return backend.startsWith(LOCAL_BACKEND_PREFIX) || backend.startsWith(CORPUS_BACKEND_PREFIX);
+    }
+
+    private Path getLocalRoot() {
+
+        return Path.of(backend.substring(backend.indexOf(':') + 1));
     }
 
     private Firestore getDatabase() {
@@ -92,4 +324,11 @@ public class DocumentConverter {
                 StorageOptions.newBuilder()
                         .build());
     }
+
+    private Storage getStorage() {
+
+        return StorageOptions.newBuilder()
+                .build()
+                .getService();
+    }
 }
@@ -1,6 +1,27 @@
 package edu.kpi;
 
+import edu.kpi.metrics.MetricsExport;
+
+/**
+ * Arguments: source bucket, target bucket, project ID, database ID, collection ID, retries, batch size, then
+ * optionally the engines (default {@code chapters}), the backend (default {@code gcp}), the work assignment
+ * (default {@code all}), the result cache (default {@code local}) and the metrics port (default {@code 0}, no
+ * Prometheus endpoint); see {@link DocumentConverter} for the values.
+ * <p>
+ * Engines are {@code chapters}, {@code structure} and {@code text}, comma-separated. {@code structure} writes its
+ * chapters to {@code structureChapters}, next to the {@code chapters} of the regex engine rather than over them.
+ * <p>
+ * With the {@code corpus:<root>} backend, documents are the PDFs under {@code <root>/<source bucket>/}, and the
+ * top-level directory of each is its collection, so the default engines need a layout such as
+ * {@code Бакалаврські роботи/...} and {@code Магістерські роботи/...}.
+ */
 public class Main {
+
+    private static final String DEFAULT_ENGINES = "chapters";
+    private static final String DEFAULT_BACKEND = "gcp";
+    private static final String DEFAULT_ASSIGNMENT = "all";
+    private static final String DEFAULT_CACHE = "local";
+
     public static void main(String[] args) throws Exception {
 
         String sourceBucketName = args[0];
@@ -10,8 +31,13 @@ public class Main {
         String collectionId = args[4];
         int retries = Integer.parseInt(args[5]);
         int batchSize = Integer.parseInt(args[6]);
+        String engineNames = args.length > 7 ? args[7] : DEFAULT_ENGINES;
+        String backend = args.length > 8 ? args[8] : DEFAULT_BACKEND;
+        String assignment = args.length > 9 ? args[9] : DEFAULT_ASSIGNMENT;
+        String cache = args.length > 10 ? args[10] : DEFAULT_CACHE;
+        int metricsPort = args.length > 11 ? Integer.parseInt(args[11]) : MetricsExport.NO_PORT;
 
-        new DocumentConverter(sourceBucketName, targetBucketName, projectId, databaseId, collectionId, retries, batchSize)
+        new DocumentConverter(sourceBucketName, targetBucketName, projectId, databaseId, collectionId, retries, batchSize, engineNames, backend, assignment, cache, metricsPort)
                 .convertDocuments();
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package edu.kpi.cache;
+
+import edu.kpi.store.BlobStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * Shared tier kept under a prefix of a bucket, so that results survive the VM and are seen by every worker.
+ * Expiry is left to the bucket lifecycle rules.
+ */
+public class BucketCacheTier implements CacheTier {
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    private final BlobStore store;
+    private final String prefix;
+
+    public BucketCacheTier(BlobStore store, String prefix) {
+
+        this.store = store;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+
+        try (final InputStream stream = Channels.newInputStream(store.open(prefix + key))) {
+
+            return stream.readAllBytes();
+
+        } catch (NoSuchFileException e) {
+
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value) throws IOException {
+
+        try (final OutputStream stream = Channels.newOutputStream(store.create(prefix + key, CONTENT_TYPE))) {
+
+            stream.write(value);
+        }
+    }
+}
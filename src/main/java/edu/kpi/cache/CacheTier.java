@@ -0,0 +1,16 @@
+package edu.kpi.cache;
+
+import java.io.IOException;
+
+/**
+ * One storage level of the {@link ResultCache}, holding serialized results by key.
+ */
+public interface CacheTier {
+
+    /**
+     * @return the stored bytes, or {@code null} when the key is not present
+     */
+    byte[] get(String key) throws IOException;
+
+    void put(String key, byte[] value) throws IOException;
+}
@@ -0,0 +1,125 @@
+package edu.kpi.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Tier on local disk, one file per key, evicting the least recently used entries once {@code maxBytes} is exceeded.
+ * The recency order is rebuilt from modification times on start, and reads touch the file to keep it across restarts.
+ */
+public class LocalDiskCacheTier implements CacheTier {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public LocalDiskCacheTier(Path directory, long maxBytes) throws IOException {
+
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+
+        loadEntries();
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+
+        synchronized (this) {
+
+            if (entrySizes.get(key) == null) return null;
+        }
+
+        final Path file = directory.resolve(key);
+
+        try {
+
+            final byte[] value = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+
+            return value;
+
+        } catch (NoSuchFileException e) {
+
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value) throws IOException {
+
+        final Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+
+        Files.write(temp, value);
+        Files.move(temp, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (this) {
+
+            final Long previousSize = entrySizes.put(key, (long) value.length);
+            totalBytes += value.length - (previousSize == null ? 0 : previousSize);
+
+            evict();
+        }
+    }
+
+    private void evict() throws IOException {
+
+        final Iterator<Map.Entry<String, Long>> eldest = entrySizes.entrySet().iterator();
+
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+
+            final Map.Entry<String, Long> entry = eldest.next();
+
+            Files.deleteIfExists(directory.resolve(entry.getKey()));
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private void loadEntries() throws IOException {
+
+        final List<Path> files;
+
+        try (final Stream<Path> listing = Files.list(directory)) {
+
+            files = listing.filter(Files::isRegularFile).toList();
+        }
+
+        final Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+
+        for (final Path file : files) {
+
+            if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+
+                Files.deleteIfExists(file);
+
+            } else {
+
+                attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+            }
+        }
+
+        attributes.entrySet().stream()
+                .sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+                .forEach(entry -> {
+
+                    entrySizes.put(entry.getKey().getFileName().toString(), entry.getValue().size());
+                    totalBytes += entry.getValue().size();
+                });
+
+        evict();
+    }
+}
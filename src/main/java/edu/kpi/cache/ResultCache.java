@@ -0,0 +1,147 @@
+package edu.kpi.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.reflect.TypeToken;
+import edu.kpi.engine.ConversionEngine;
+import edu.kpi.store.BlobStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Engine results addressed by the content hash of the source and the engine version, so the same PDF uploaded
+ * under several documents or paths is converted once. Tiers are tried in order and a hit in a later tier is copied
+ * into the earlier ones.
+ * <p>
+ * The cache never fails a conversion: a tier that cannot be read or written is reported and treated as a miss.
+ * <p>
+ * Entries are gzipped JSON, so an entry read from a shared bucket can only ever yield strings, numbers, booleans,
+ * lists and maps, whoever wrote it.
+ */
+public class ResultCache {
+
+    private static final Gson GSON = new GsonBuilder()
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+            .serializeNulls()
+            .create();
+    private static final Type FIELDS_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+    private static final String ENTRY_EXTENSION = ".json.gz";
+
+    private final BlobStore sourceStore;
+    private final List<CacheTier> tiers;
+
+    /**
+     * @param sourceStore store of the sources, which supplies their content hashes
+     */
+    public ResultCache(BlobStore sourceStore, List<CacheTier> tiers) {
+
+        this.sourceStore = sourceStore;
+        this.tiers = tiers;
+    }
+
+    public String contentHash(final String bucketUrl) throws IOException {
+
+        return sourceStore.contentHash(sourceStore.keyOf(bucketUrl));
+    }
+
+    /**
+     * @return the fields the engine produced for the same content, or {@code null} on a miss
+     */
+    public Map<String, Object> get(final String contentHash, final ConversionEngine engine) {
+
+        final String key = key(contentHash, engine);
+
+        for (int tier = 0; tier < tiers.size(); tier++) {
+
+            try {
+
+                final byte[] value = tiers.get(tier).get(key);
+
+                if (value != null) {
+
+                    for (int earlierTier = 0; earlierTier < tier; earlierTier++) {
+
+                        tiers.get(earlierTier).put(key, value);
+                    }
+
+                    return deserialize(value);
+                }
+
+            } catch (IOException | JsonParseException e) {
+
+                logCacheFailed(key, e);
+            }
+        }
+
+        return null;
+    }
+
+    public void put(final String contentHash, final ConversionEngine engine, final Map<String, Object> fields) {
+
+        final String key = key(contentHash, engine);
+
+        try {
+
+            final byte[] value = serialize(fields);
+
+            for (final CacheTier tier : tiers) {
+
+                tier.put(key, value);
+            }
+
+        } catch (IOException e) {
+
+            logCacheFailed(key, e);
+        }
+    }
+
+    private String key(final String contentHash, final ConversionEngine engine) {
+
+        return engine.name() + "-v" + engine.version() + "-" + contentHash + ENTRY_EXTENSION;
+    }
+
+    private byte[] serialize(final Map<String, Object> fields) throws IOException {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final Writer output = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+
+            GSON.toJson(fields, FIELDS_TYPE, output);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private Map<String, Object> deserialize(final byte[] value) throws IOException {
+
+        try (final Reader input = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(value)), StandardCharsets.UTF_8)) {
+
+            final Map<String, Object> fields = GSON.fromJson(input, FIELDS_TYPE);
+
+            if (fields == null) throw new JsonParseException("Empty cache entry");
+
+            return fields;
+        }
+    }
+
+    private void logCacheFailed(final String key, final Exception e) {
+
+        System.err.print(e);
+        System.out.println("Result cache unavailable for " + key);
+    }
+}
@@ -0,0 +1,69 @@
+package edu.kpi.engine;
+
+import edu.kpi.segmenter.ChapterSegmenter;
+import edu.kpi.store.DocumentRecord;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chapters found in the page text by {@link ChapterSegmenter}.
+ */
+public class ChapterEngine implements ConversionEngine {
+
+    private static final List<String> ALLOWED_COLLECTIONS = List.of("Бакалаврські роботи", "Магістерські роботи");
+    private static final String CHAPTERS_ATTR = "chapters";
+    private static final String CHAPTERS_COUNT_ATTR = "chaptersCount";
+    private static final String PDF_EXTENSION = ".pdf";
+
+    private static final ChapterSegmenter SEGMENTER = new ChapterSegmenter();
+
+    @Override
+    public String name() {
+
+        return "chapters";
+    }
+
+    @Override
+    public String markerField() {
+
+        return CHAPTERS_COUNT_ATTR;
+    }
+
+    /**
+     * Documents converted before the count was written have only {@code chapters}.
+     */
+    @Override
+    public List<String> legacyFields() {
+
+        return List.of(CHAPTERS_ATTR);
+    }
+
+    @Override
+    public Map<String, Object> legacyMarker(DocumentRecord document) {
+
+        final Object chapters = document.get(CHAPTERS_ATTR);
+
+        return Map.of(CHAPTERS_COUNT_ATTR, chapters instanceof Map<?, ?> chapterMap ? chapterMap.size() : 0);
+    }
+
+    @Override
+    public List<String> collections() {
+
+        return ALLOWED_COLLECTIONS;
+    }
+
+    @Override
+    public boolean accepts(String bucketUrl) {
+
+        return bucketUrl.endsWith(PDF_EXTENSION);
+    }
+
+    @Override
+    public Map<String, Object> convert(ConversionInput input) throws Exception {
+
+        final Map<String, String> chapters = SEGMENTER.segment(input.text());
+
+        return Map.of(CHAPTERS_ATTR, chapters, CHAPTERS_COUNT_ATTR, chapters.size());
+    }
+}
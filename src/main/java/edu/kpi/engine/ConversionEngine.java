@@ -0,0 +1,79 @@
+package edu.kpi.engine;
+
+import edu.kpi.store.DocumentRecord;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One kind of output produced from a source document. Engines are discovered with {@link java.util.ServiceLoader},
+ * so implementations need a public no-argument constructor and an entry in
+ * {@code META-INF/services/edu.kpi.engine.ConversionEngine}.
+ * <p>
+ * All engines selected for a run share one download of the document and any parse they have in common
+ * through {@link ConversionInput}; their fields are merged into a single document update.
+ */
+public interface ConversionEngine {
+
+    /**
+     * Name used to select the engine on the command line.
+     */
+    String name();
+
+    /**
+     * Small field written with every result. A document that already has it is not converted by this engine again.
+     */
+    String markerField();
+
+    /**
+     * Fields that results written before {@link #markerField()} existed can be recognised by. A document pending for
+     * the engine that has one of them is not converted again; it gets the marker from {@link #legacyMarker} instead.
+     */
+    default List<String> legacyFields() {
+
+        return List.of();
+    }
+
+    /**
+     * @param document the whole document, which has one of the {@link #legacyFields()}
+     * @return the marker, and any other fields missing from the legacy result
+     */
+    default Map<String, Object> legacyMarker(DocumentRecord document) {
+
+        throw new UnsupportedOperationException(name() + " has no legacy results");
+    }
+
+    /**
+     * Part of the result cache key; bump it whenever the output for the same source changes.
+     */
+    default int version() {
+
+        return 1;
+    }
+
+    /**
+     * Whether results may be reused for other documents with the same source content.
+     */
+    default boolean cacheable() {
+
+        return true;
+    }
+
+    /**
+     * Collections whose documents the engine converts; an empty list accepts every collection.
+     */
+    default List<String> collections() {
+
+        return List.of();
+    }
+
+    default boolean accepts(String bucketUrl) {
+
+        return true;
+    }
+
+    /**
+     * @return fields to write to the document, including {@link #markerField()}
+     */
+    Map<String, Object> convert(ConversionInput input) throws Exception;
+}
@@ -0,0 +1,101 @@
+package edu.kpi.engine;
+
+import edu.kpi.store.CandidateQuery;
+import edu.kpi.store.DocumentRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The engines selected for a run.
+ */
+public class ConversionEngines {
+
+    private static final String COLLECTIONS_ATTR = "collections";
+    private static final String BUCKET_URL_ATTR = "bucketUrl";
+
+    private final List<ConversionEngine> engines;
+
+    private ConversionEngines(List<ConversionEngine> engines) {
+
+        this.engines = engines;
+    }
+
+    /**
+     * @param names comma-separated engine names, e.g. {@code chapters,structure,text}
+     */
+    public static ConversionEngines load(String names) {
+
+        final Map<String, ConversionEngine> available = ServiceLoader.load(ConversionEngine.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .collect(Collectors.toMap(ConversionEngine::name, Function.identity()));
+
+        final List<ConversionEngine> selected = new ArrayList<>();
+
+        for (final String name : new LinkedHashSet<>(Arrays.asList(names.split(",")))) {
+
+            final ConversionEngine engine = available.get(name.strip());
+
+            if (engine == null) {
+
+                throw new IllegalArgumentException("Unknown conversion engine '" + name + "', available: " + available.keySet());
+            }
+
+            selected.add(engine);
+        }
+
+        return new ConversionEngines(selected);
+    }
+
+    /**
+     * Documents any of the engines may convert, with the field mask reduced to the source URL, the collections
+     * and the engine markers. The collection filter is applied by the store when every engine
+     * restricts collections.
+     */
+    public CandidateQuery candidateQuery() {
+
+        final Set<String> fields = new LinkedHashSet<>(List.of(BUCKET_URL_ATTR, COLLECTIONS_ATTR));
+        final Set<String> collections = new LinkedHashSet<>();
+        boolean restricted = true;
+
+        for (final ConversionEngine engine : engines) {
+
+            fields.add(engine.markerField());
+            collections.addAll(engine.collections());
+            restricted &= !engine.collections().isEmpty();
+        }
+
+        final CandidateQuery query = CandidateQuery.select(fields.toArray(String[]::new));
+
+        return restricted ? query.whereArrayContainsAny(COLLECTIONS_ATTR, List.copyOf(collections)) : query;
+    }
+
+    /**
+     * Engines that still have to convert the document returned by {@link #candidateQuery()}.
+     */
+    public List<ConversionEngine> pending(DocumentRecord document) {
+
+        final String bucketUrl = document.getString(BUCKET_URL_ATTR);
+
+        if (bucketUrl == null) {
+
+            return List.of();
+        }
+
+        final List<?> documentCollections = (List<?>) document.get(COLLECTIONS_ATTR);
+
+        return engines.stream()
+                .filter(engine -> !document.contains(engine.markerField()))
+                .filter(engine -> engine.collections().isEmpty()
+                        || documentCollections != null && engine.collections().stream().anyMatch(documentCollections::contains))
+                .filter(engine -> engine.accepts(bucketUrl))
+                .toList();
+    }
+}
@@ -0,0 +1,170 @@
+package edu.kpi.engine;
+
+import edu.kpi.extractor.ExtractedText;
+import edu.kpi.extractor.ParserRegistry;
+import edu.kpi.io.SourcePdf;
+import edu.kpi.metrics.ConversionMetrics;
+import edu.kpi.segmenter.StructText;
+import edu.kpi.store.DocumentRecord;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.PagedText;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.xml.sax.ContentHandler;
+
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * One downloaded document as seen by the engines. Every parse of the source is made at most once,
+ * on first request, and handed to all engines that ask for it.
+ * <p>
+ * Engines of a document run one after another on the task thread, so instances are not thread-safe.
+ */
+public class ConversionInput {
+
+    private static final String PDF_INFO_COMMAND = "/usr/bin/pdfinfo";
+    private static final String STANDARD_INPUT_FILE = "fd://0";
+
+    private final DocumentRecord document;
+    private final String bucketUrl;
+    private final SourcePdf source;
+    private final EngineContext context;
+
+    private String text;
+    private String plainText;
+    private StructText structText;
+    private long parseNanos;
+    private boolean pagesRecorded;
+
+    public ConversionInput(DocumentRecord document, String bucketUrl, SourcePdf source, EngineContext context) {
+
+        this.document = document;
+        this.bucketUrl = bucketUrl;
+        this.source = source;
+        this.context = context;
+    }
+
+    public DocumentRecord document() {
+
+        return document;
+    }
+
+    public String bucketUrl() {
+
+        return bucketUrl;
+    }
+
+    public EngineContext context() {
+
+        return context;
+    }
+
+    /**
+     * Time spent parsing the source so far, so that callers can tell it apart from their own processing.
+     */
+    public long parseNanos() {
+
+        return parseNanos;
+    }
+
+    /**
+     * Page text without running headers and footers, as extracted by PDFBox.
+     */
+    public String text() throws Exception {
+
+        if (text == null) {
+
+            final long start = System.nanoTime();
+            final ExtractedText extracted = context.extractor().extract(source);
+
+            text = extracted.text();
+            recordParse(start, extracted.pageCount());
+        }
+
+        return text;
+    }
+
+    /**
+     * Body text as extracted by Tika.
+     */
+    public String plainText() throws Exception {
+
+        if (plainText == null) {
+
+            final BodyContentHandler handler = new BodyContentHandler(-1);
+
+            parsePlainText(handler);
+            plainText = handler.toString();
+        }
+
+        return plainText;
+    }
+
+    /**
+     * Body text as extracted by Tika, passed to {@code output} while the parser produces it, so that it is never held
+     * in memory whole. A text {@link #plainText()} already parsed is written from memory instead.
+     */
+    public void writePlainText(final Writer output) throws Exception {
+
+        if (plainText != null) {
+
+            output.write(plainText);
+
+        } else {
+
+            parsePlainText(new BodyContentHandler(output));
+        }
+    }
+
+    private void parsePlainText(final ContentHandler handler) throws Exception {
+
+        final long start = System.nanoTime();
+        final Metadata metadata = new Metadata();
+
+        try (final InputStream stream = source.openStream()) {
+
+            ParserRegistry.pdf().parse(stream, handler, metadata, new ParseContext());
+        }
+
+        final Integer pageCount = metadata.getInt(PagedText.N_PAGES);
+
+        recordParse(start, pageCount == null ? 0 : pageCount);
+    }
+
+    /**
+     * Output of {@code pdfinfo -struct-text}, with the PDF piped through its standard input.
+     */
+    public StructText structText() throws Exception {
+
+        if (structText == null) {
+
+            final long start = System.nanoTime();
+
+            structText = context.processRunner().run(
+                    List.of(PDF_INFO_COMMAND, "-struct-text", STANDARD_INPUT_FILE), source.openStream(), StructText::read);
+
+            recordParse(start, 0);
+        }
+
+        return structText;
+    }
+
+    /**
+     * Every parse is timed, but the pages of a document are counted once however many parsers read them.
+     */
+    private void recordParse(final long start, final int pageCount) {
+
+        final long elapsed = System.nanoTime() - start;
+
+        parseNanos += elapsed;
+        context.metrics().recordStage(ConversionMetrics.Stage.EXTRACTION, elapsed);
+
+        if (!pagesRecorded && pageCount > 0) {
+
+            context.metrics().recordPages(pageCount);
+            pagesRecorded = true;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package edu.kpi.engine;
+
+import edu.kpi.extractor.ParallelTextExtractor;
+import edu.kpi.metrics.ConversionMetrics;
+import edu.kpi.process.ProcessRunner;
+import edu.kpi.store.BlobStore;
+
+/**
+ * Services shared by all engines for the whole run.
+ */
+public record EngineContext(ParallelTextExtractor extractor, ProcessRunner processRunner, BlobStore targetStore,
+                            ConversionMetrics metrics) {
+}
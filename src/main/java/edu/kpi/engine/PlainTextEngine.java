@@ -0,0 +1,98 @@
+package edu.kpi.engine;
+
+import edu.kpi.store.BlobStore;
+import edu.kpi.writer.StreamingTextWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Whole body text as a UTF-8 {@code .txt} file in the target store. The text is streamed into the file as Tika
+ * produces it; the document gets a pointer to the file, its size and hash and a bounded preview, which keeps it
+ * well under the Firestore document size limit however long the text is.
+ */
+public class PlainTextEngine implements ConversionEngine {
+
+    private static final String CONTENT_URL_ATTR = "contentUrl";
+    private static final String CONTENT_PREVIEW_ATTR = "contentPreview";
+    private static final String CONTENT_LENGTH_ATTR = "contentLength";
+    private static final String CONTENT_BYTES_ATTR = "contentBytes";
+    private static final String CONTENT_SHA256_ATTR = "contentSha256";
+    private static final String PDF_EXTENSION = ".pdf";
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final String TEXT_MIME_TYPE = "text/plain; charset=utf-8";
+    private static final int PREVIEW_CHARS = 10_000;
+
+    @Override
+    public String name() {
+
+        return "text";
+    }
+
+    @Override
+    public String markerField() {
+
+        return CONTENT_LENGTH_ATTR;
+    }
+
+    /**
+     * Text is parsed with the shared PDF-only parser.
+     */
+    @Override
+    public boolean accepts(String bucketUrl) {
+
+        return bucketUrl.endsWith(PDF_EXTENSION);
+    }
+
+    /**
+     * The {@code .txt} copy is named after the source path, so a result cached for another path would leave it unwritten.
+     */
+    @Override
+    public boolean cacheable() {
+
+        return false;
+    }
+
+    @Override
+    public Map<String, Object> convert(ConversionInput input) throws Exception {
+
+        final String bucketUrl = input.bucketUrl();
+        final String fileName = bucketUrl.substring(bucketUrl.lastIndexOf('/') + 1);
+        final String key = fileName.substring(0, fileName.lastIndexOf('.')) + TEXT_EXTENSION;
+        final BlobStore targetStore = input.context().targetStore();
+
+        final StreamingTextWriter output = new StreamingTextWriter(targetStore.create(key, TEXT_MIME_TYPE), PREVIEW_CHARS);
+
+        try (output) {
+
+            input.writePlainText(output);
+
+        } catch (Exception e) {
+
+            deleteOutput(targetStore, key, e);
+            throw e;
+        }
+
+        return Map.of(
+                CONTENT_URL_ATTR, targetStore.url(key),
+                CONTENT_PREVIEW_ATTR, output.preview(),
+                CONTENT_LENGTH_ATTR, output.charCount(),
+                CONTENT_BYTES_ATTR, output.byteCount(),
+                CONTENT_SHA256_ATTR, output.sha256());
+    }
+
+    /**
+     * Closing the writer finished the file with the text parsed before the failure, so it is removed.
+     */
+    private static void deleteOutput(final BlobStore targetStore, final String key, final Exception failure) {
+
+        try {
+
+            targetStore.delete(key);
+
+        } catch (IOException e) {
+
+            failure.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.kpi.engine;
+
+import edu.kpi.segmenter.StructText;
+import edu.kpi.segmenter.StructTextSegmenter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chapters taken from the tagged structure of the PDF, for documents that have a table of contents.
+ * Written next to the {@link ChapterEngine} chapters rather than over them.
+ */
+public class StructureEngine implements ConversionEngine {
+
+    private static final List<String> ALLOWED_COLLECTIONS = List.of("Бакалаврські роботи", "Магістерські роботи");
+    private static final String STRUCTURE_CHAPTERS_ATTR = "structureChapters";
+    private static final String STRUCTURE_CHAPTERS_COUNT_ATTR = "structureChaptersCount";
+    private static final String PDF_EXTENSION = ".pdf";
+
+    private static final StructTextSegmenter SEGMENTER = new StructTextSegmenter();
+
+    @Override
+    public String name() {
+
+        return "structure";
+    }
+
+    @Override
+    public String markerField() {
+
+        return STRUCTURE_CHAPTERS_COUNT_ATTR;
+    }
+
+    @Override
+    public List<String> collections() {
+
+        return ALLOWED_COLLECTIONS;
+    }
+
+    @Override
+    public boolean accepts(String bucketUrl) {
+
+        return bucketUrl.endsWith(PDF_EXTENSION);
+    }
+
+    @Override
+    public Map<String, Object> convert(ConversionInput input) throws Exception {
+
+        final StructText structText = input.structText();
+
+        if (structText.content().isEmpty() || !SEGMENTER.hasTableOfContents(structText.tokens())) {
+
+            // recorded anyway, so that untagged documents are not analysed again on the next run
+            return Map.of(STRUCTURE_CHAPTERS_COUNT_ATTR, 0);
+        }
+
+        final Map<String, String> chapters = SEGMENTER.segment(structText.content(), structText.tokens());
+
+        return Map.of(STRUCTURE_CHAPTERS_ATTR, chapters, STRUCTURE_CHAPTERS_COUNT_ATTR, chapters.size());
+    }
+}
@@ -0,0 +1,4 @@
+package edu.kpi.extractor;
+
+public record ExtractedText(String text, int pageCount) {
+}
@@ -0,0 +1,140 @@
+package edu.kpi.extractor;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import edu.kpi.io.SourcePdf;
+import edu.kpi.stripper.ExcludeHeaderFooterTextStripper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Extracts the text of large documents in page ranges running concurrently on a shared fork/join pool.
+ * <p>
+ * {@link PDDocument} is not thread-safe, so every range loads its own document from the in-memory source
+ * and uses its own stripper. The ranges are stitched back together in page order, which gives the same
+ * text as a single stripper over the whole document. Documents shorter than {@code minPagesToSplit}
+ * are extracted on the calling thread. Running headers learned by the stripper are learned per range.
+ * <p>
+ * The method returns, or throws, only once no range is running any more, so the caller can release the source.
+ */
+public class ParallelTextExtractor {
+
+    private final ForkJoinPool pool;
+    private final int pagesPerChunk;
+    private final int minPagesToSplit;
+    private final boolean learnRepeatedBands;
+
+    public ParallelTextExtractor(ForkJoinPool pool, int pagesPerChunk, int minPagesToSplit, boolean learnRepeatedBands) {
+
+        this.pool = pool;
+        this.pagesPerChunk = pagesPerChunk;
+        this.minPagesToSplit = minPagesToSplit;
+        this.learnRepeatedBands = learnRepeatedBands;
+    }
+
+    public ExtractedText extract(final SourcePdf source) throws IOException {
+
+        try (final PDDocument document = source.load()) {
+
+            final int pageCount = document.getNumberOfPages();
+
+            if (pageCount < minPagesToSplit) {
+
+                return new ExtractedText(extractRange(document, 1, pageCount), pageCount);
+            }
+
+            final int chunkCount = (pageCount - 1) / pagesPerChunk;
+            final CountDownLatch finished = new CountDownLatch(chunkCount);
+            final AtomicBoolean aborted = new AtomicBoolean();
+            final List<Future<String>> chunks = new ArrayList<>();
+
+            try {
+
+                for (int firstPage = 1 + pagesPerChunk; firstPage <= pageCount; firstPage += pagesPerChunk) {
+
+                    final int startPage = firstPage;
+                    final int endPage = Math.min(firstPage + pagesPerChunk - 1, pageCount);
+
+                    chunks.add(pool.submit(() -> {
+
+                        try {
+
+                            return aborted.get() ? null : extractRange(source, startPage, endPage);
+
+                        } finally {
+
+                            finished.countDown();
+                        }
+                    }));
+                }
+
+                // the first chunk reuses the document already loaded on this thread
+                final StringBuilder result = new StringBuilder(extractRange(document, 1, pagesPerChunk));
+
+                for (final Future<String> chunk : chunks) {
+
+                    result.append(join(chunk));
+                }
+
+                return new ExtractedText(result.toString(), pageCount);
+
+            } finally {
+
+                aborted.set(true);
+
+                // chunks that were never submitted will not count down themselves
+                for (int unsubmitted = chunks.size(); unsubmitted < chunkCount; unsubmitted++) {
+
+                    finished.countDown();
+                }
+
+                // a chunk still loading the source would read it after the caller has handed it back
+                Uninterruptibles.awaitUninterruptibly(finished);
+            }
+        }
+    }
+
+    private String extractRange(final SourcePdf source, final int startPage, final int endPage) throws IOException {
+
+        try (final PDDocument document = source.load()) {
+
+            return extractRange(document, startPage, endPage);
+        }
+    }
+
+    private String extractRange(final PDDocument document, final int startPage, final int endPage) throws IOException {
+
+        final PDFTextStripper stripper = new ExcludeHeaderFooterTextStripper(learnRepeatedBands);
+
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+
+        return stripper.getText(document);
+    }
+
+    private String join(final Future<String> chunk) throws IOException {
+
+        try {
+
+            return chunk.get();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting text", e);
+
+        } catch (ExecutionException e) {
+
+            if (e.getCause() instanceof IOException cause) throw cause;
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package edu.kpi.extractor;
+
+import lombok.SneakyThrows;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.pdf.PDFParser;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+import org.apache.tika.sax.BodyContentHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * Tika parsers shared by the whole process. Every source is a PDF, so instead of an {@code AutoDetectParser}, which
+ * discovers the full parser set through the service loader and detects the type of each document, a single
+ * PDF parser is built once. Tika parsers keep no state between calls, so it is used from all threads at once.
+ * <p>
+ * Options favour throughput on text-only output: no OCR, no inline images, no bookmarks and no reordering of text
+ * by position. Embedded files are not parsed, since the parse context carries no parser for them.
+ */
+public final class ParserRegistry {
+
+    private static final String WARM_UP_TEXT = "Warm up";
+    private static final float WARM_UP_FONT_SIZE = 12;
+    private static final float WARM_UP_OFFSET = 72;
+
+    private static final Parser PDF_PARSER = createPdfParser();
+
+    private ParserRegistry() {
+    }
+
+    public static Parser pdf() {
+
+        return PDF_PARSER;
+    }
+
+    /**
+     * Runs the shared parser over a generated one-page PDF, so that class loading and font setup in Tika and PDFBox
+     * happen at startup rather than in the first document.
+     */
+    @SneakyThrows
+    public static void warmUp() {
+
+        final long start = System.nanoTime();
+
+        try (final InputStream stream = new ByteArrayInputStream(createWarmUpPdf())) {
+
+            PDF_PARSER.parse(stream, new BodyContentHandler(-1), new Metadata(), new ParseContext());
+        }
+
+        logWarmedUp(System.nanoTime() - start);
+    }
+
+    private static Parser createPdfParser() {
+
+        final PDFParserConfig config = new PDFParserConfig();
+
+        config.setOcrStrategy(PDFParserConfig.OCR_STRATEGY.NO_OCR);
+        config.setExtractInlineImages(false);
+        config.setImageStrategy(PDFParserConfig.IMAGE_STRATEGY.NONE);
+        config.setExtractBookmarksText(false);
+        config.setSortByPosition(false);
+
+        final PDFParser parser = new PDFParser();
+        parser.setPDFParserConfig(config);
+
+        return parser;
+    }
+
+    private static byte[] createWarmUpPdf() throws Exception {
+
+        try (final PDDocument document = new PDDocument(); final ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+
+            final PDPage page = new PDPage();
+            document.addPage(page);
+
+            try (final PDPageContentStream content = new PDPageContentStream(document, page)) {
+
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), WARM_UP_FONT_SIZE);
+                content.newLineAtOffset(WARM_UP_OFFSET, WARM_UP_OFFSET);
+                content.showText(WARM_UP_TEXT);
+                content.endText();
+            }
+
+            document.save(output);
+
+            return output.toByteArray();
+        }
+    }
+
+    private static void logWarmedUp(final long nanos) {
+
+        System.out.println("Warmed up PDF parser in " + nanos / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,81 @@
+package edu.kpi.io;
+
+import java.nio.ByteBuffer;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a few heap buffers around so that downloads of similar size reuse memory
+ * instead of allocating a fresh array per document.
+ * <p>
+ * Buffers come in power-of-two size classes and a request is served only from its own class, so a small
+ * document never takes, and pins, a buffer sized for a large one. Buffers larger than {@code maxPooledBytes}
+ * are allocated to the exact size and never retained. The buffers kept between documents take at most
+ * {@code maxRetainedBytes} in total.
+ */
+public class BufferPool {
+
+    private static final int MIN_CLASS_BYTES = 64 * 1024;
+
+    private final ConcurrentHashMap<Integer, Deque<ByteBuffer>> classes = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final long maxRetainedBytes;
+    private final int maxPooledBytes;
+
+    public BufferPool(long maxRetainedBytes, int maxPooledBytes) {
+
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * @return capacity of the buffer {@link #acquire(int)} hands out for {@code size} bytes, which is what it takes
+     * of the heap while in use
+     */
+    public int capacityFor(final int size) {
+
+        if (size > maxPooledBytes) return size;
+
+        final long capacity = Math.max(MIN_CLASS_BYTES, (long) Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+
+        return capacity > maxPooledBytes ? size : (int) capacity;
+    }
+
+    /**
+     * @return a cleared buffer whose limit is exactly {@code size}
+     */
+    public ByteBuffer acquire(final int size) {
+
+        final int capacity = capacityFor(size);
+        final Deque<ByteBuffer> buffers = classes.get(capacity);
+        final ByteBuffer pooled = buffers == null ? null : buffers.poll();
+
+        if (pooled == null) {
+
+            return ByteBuffer.allocate(capacity).limit(size);
+        }
+
+        retainedBytes.addAndGet(-capacity);
+
+        return pooled.clear().limit(size);
+    }
+
+    public void release(final ByteBuffer buffer) {
+
+        final int capacity = buffer.capacity();
+
+        // exact-size buffers would only ever serve a request of that very size
+        if (capacity > maxPooledBytes || capacity < MIN_CLASS_BYTES || Integer.bitCount(capacity) != 1) return;
+
+        if (retainedBytes.addAndGet(capacity) <= maxRetainedBytes) {
+
+            classes.computeIfAbsent(capacity, key -> new ConcurrentLinkedDeque<>()).push(buffer);
+
+        } else {
+
+            retainedBytes.addAndGet(-capacity);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package edu.kpi.io;
+
+import edu.kpi.pipeline.MemoryBudget;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Source PDF held in a pooled heap buffer and parsed straight from memory.
+ * The buffer goes back to the pool on {@link #close()}.
+ */
+class BufferedSourcePdf implements SourcePdf {
+
+    private final ByteBuffer buffer;
+    private final BufferPool bufferPool;
+    private final MemoryBudget.Reservation reservation;
+
+    BufferedSourcePdf(ByteBuffer buffer, BufferPool bufferPool, MemoryBudget.Reservation reservation) {
+
+        this.buffer = buffer;
+        this.bufferPool = bufferPool;
+        this.reservation = reservation;
+    }
+
+    @Override
+    public long size() {
+
+        return buffer.limit();
+    }
+
+    @Override
+    public PDDocument load() throws IOException {
+
+        return Loader.loadPDF(new RandomAccessReadBuffer(buffer.duplicate()));
+    }
+
+    @Override
+    public InputStream openStream() {
+
+        return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset(), buffer.limit());
+    }
+
+    @Override
+    public void close() {
+
+        bufferPool.release(buffer);
+        reservation.close();
+    }
+}
@@ -0,0 +1,53 @@
+package edu.kpi.io;
+
+import edu.kpi.pipeline.MemoryBudget;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Source PDF too large to be held in memory, parsed from a local file. PDFBox reads it from the file
+ * and keeps decoded streams in temporary files too, so the heap holds little more than the object graph.
+ */
+class LocalFileSourcePdf implements SourcePdf {
+
+    protected final Path file;
+    private final long size;
+    private final MemoryBudget.Reservation reservation;
+
+    LocalFileSourcePdf(Path file, long size, MemoryBudget.Reservation reservation) {
+
+        this.file = file;
+        this.size = size;
+        this.reservation = reservation;
+    }
+
+    @Override
+    public long size() {
+
+        return size;
+    }
+
+    @Override
+    public PDDocument load() throws IOException {
+
+        return Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() {
+
+        reservation.close();
+    }
+}
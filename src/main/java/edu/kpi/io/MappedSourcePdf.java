@@ -0,0 +1,70 @@
+package edu.kpi.io;
+
+import edu.kpi.pipeline.MemoryBudget;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Source PDF in a local file, mapped into memory and parsed in place. PDFBox reads the mapping directly, so
+ * a file already in the page cache is converted without being copied at all, and the bytes never count
+ * against the heap.
+ * <p>
+ * The mapping is released once the buffer is garbage collected; closing only gives back the memory reservation.
+ */
+class MappedSourcePdf implements SourcePdf {
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final MemoryBudget.Reservation reservation;
+
+    private MappedSourcePdf(Path file, MappedByteBuffer buffer, MemoryBudget.Reservation reservation) {
+
+        this.file = file;
+        this.buffer = buffer;
+        this.reservation = reservation;
+    }
+
+    /**
+     * @param file a file of at most {@link Integer#MAX_VALUE} bytes, the largest a single mapping can hold
+     */
+    static MappedSourcePdf map(final Path file, final MemoryBudget.Reservation reservation) throws IOException {
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            return new MappedSourcePdf(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), reservation);
+        }
+    }
+
+    @Override
+    public long size() {
+
+        return buffer.capacity();
+    }
+
+    @Override
+    public PDDocument load() throws IOException {
+
+        return Loader.loadPDF(new RandomAccessReadBuffer(buffer.duplicate()));
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() {
+
+        reservation.close();
+    }
+}
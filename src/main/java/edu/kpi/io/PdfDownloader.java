@@ -0,0 +1,321 @@
+package edu.kpi.io;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import edu.kpi.pipeline.AdaptiveLimiter;
+import edu.kpi.pipeline.MemoryBudget;
+import edu.kpi.store.BlobStore;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads source objects from the source store directly into memory, without a copy on local disk.
+ * <p>
+ * Before a download starts, the heap its document is expected to take while being converted is reserved from
+ * the {@link MemoryBudget}, and the download waits until it fits. The bytes are charged at the capacity of the
+ * pooled buffer that holds them. Objects larger than {@code maxInMemoryBytes}
+ * go to a local scratch file instead and are parsed from there, which takes a fraction of the heap.
+ * <p>
+ * Objects the store already keeps in local files are not read at all: they are memory-mapped and parsed in place,
+ * or, above {@code maxInMemoryBytes}, parsed from the file the way scratch files are.
+ * <p>
+ * Objects of at least {@code minRangedReadBytes} are read as ranges of {@code RANGE_BYTES} in parallel, each
+ * written straight to its place in the buffer or scratch file, so a large PDF is not held to the bandwidth
+ * of a single stream.
+ */
+public class PdfDownloader {
+
+    private static final int BYTES_PER_MIB = 1024 * 1024;
+    // the bytes, the parsed documents of the extraction chunks and the extracted text
+    private static final int IN_MEMORY_HEAP_PER_BYTE = 4;
+    // the object graph and extracted text only, streams stay on disk
+    private static final int SCRATCH_FILE_HEAP_PER_BYTE = 1;
+    // as in memory, less the bytes, which stay in the page cache
+    private static final int MAPPED_HEAP_PER_BYTE = IN_MEMORY_HEAP_PER_BYTE - 1;
+    private static final String SCRATCH_FILE_PREFIX = "source-";
+    private static final String SCRATCH_FILE_SUFFIX = ".pdf";
+    private static final int RANGE_BYTES = 8 * 1024 * 1024;
+    private static final int COPY_BUFFER_BYTES = 256 * 1024;
+
+    private final BlobStore sourceStore;
+    private final BufferPool bufferPool;
+    private final AdaptiveLimiter limiter;
+    private final MemoryBudget memoryBudget;
+    private final long maxInMemoryBytes;
+    private final long minRangedReadBytes;
+    private final ExecutorService rangePool;
+
+    /**
+     * @param rangeThreads ranges read at once across all downloads
+     */
+    public PdfDownloader(BlobStore sourceStore, BufferPool bufferPool, AdaptiveLimiter limiter,
+                         MemoryBudget memoryBudget, long maxInMemoryBytes, long minRangedReadBytes, int rangeThreads) {
+
+        this.sourceStore = sourceStore;
+        this.bufferPool = bufferPool;
+        this.limiter = limiter;
+        this.memoryBudget = memoryBudget;
+        this.maxInMemoryBytes = Math.min(maxInMemoryBytes, Integer.MAX_VALUE);
+        this.minRangedReadBytes = Math.max(minRangedReadBytes, 2L * RANGE_BYTES);
+        this.rangePool = Executors.newFixedThreadPool(rangeThreads, runnable -> {
+
+            final Thread thread = new Thread(runnable, "range-read");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Waits for room in the memory budget, then for the download limiter, which learns from the read time per MiB
+     * and from failed reads. Mapped local files skip the limiter, there is no backend to protect.
+     */
+    @SneakyThrows(InterruptedException.class)
+    public SourcePdf download(final String bucketUrl) throws IOException {
+
+        final String key = sourceStore.keyOf(bucketUrl);
+        final long size = sourceStore.size(key);
+        final Path localFile = sourceStore.localFile(key);
+
+        if (localFile != null) {
+
+            return readInPlace(localFile, size);
+        }
+
+        final boolean inMemory = size <= maxInMemoryBytes;
+        // an in-memory source holds the whole pooled buffer, which may be larger than the object
+        final MemoryBudget.Reservation reservation = memoryBudget.reserve(inMemory
+                ? bufferPool.capacityFor((int) size) + size * (IN_MEMORY_HEAP_PER_BYTE - 1)
+                : size * SCRATCH_FILE_HEAP_PER_BYTE);
+
+        try {
+
+            final AdaptiveLimiter.Permit permit = limiter.acquire();
+
+            try {
+
+                final SourcePdf source = inMemory ? readIntoMemory(key, size, reservation) : readIntoScratchFile(key, size, reservation);
+                permit.success((double) size / BYTES_PER_MIB);
+
+                return source;
+
+            } catch (IOException | RuntimeException e) {
+
+                permit.dropped();
+                throw e;
+
+            } catch (InterruptedException e) {
+
+                permit.ignore();
+                throw e;
+            }
+
+        } catch (Exception e) {
+
+            reservation.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Local files are not copied: up to {@code maxInMemoryBytes} they are mapped, larger ones are parsed from the file
+     * with decoded streams in temporary files, as downloaded ones are from their scratch file.
+     */
+    private SourcePdf readInPlace(final Path file, final long size) throws IOException, InterruptedException {
+
+        final boolean mapped = size <= maxInMemoryBytes;
+        final MemoryBudget.Reservation reservation = memoryBudget.reserve(size * (mapped ? MAPPED_HEAP_PER_BYTE : SCRATCH_FILE_HEAP_PER_BYTE));
+
+        try {
+
+            return mapped ? MappedSourcePdf.map(file, reservation) : new LocalFileSourcePdf(file, size, reservation);
+
+        } catch (IOException | RuntimeException e) {
+
+            reservation.close();
+            throw e;
+        }
+    }
+
+    private SourcePdf readIntoMemory(final String key, final long size, final MemoryBudget.Reservation reservation)
+            throws IOException, InterruptedException {
+
+        final ByteBuffer buffer = bufferPool.acquire((int) size);
+
+        try {
+
+            if (size >= minRangedReadBytes) {
+
+                readRanges(key, size, (channel, offset, length) -> readFully(channel, buffer.slice((int) offset, (int) length)));
+
+            } else {
+
+                try (final ReadableByteChannel sourceChannel = sourceStore.open(key)) {
+
+                    readFully(sourceChannel, buffer);
+                }
+            }
+
+            return new BufferedSourcePdf(buffer.position((int) size).flip(), bufferPool, reservation);
+
+        } catch (IOException | InterruptedException | RuntimeException e) {
+
+            bufferPool.release(buffer);
+            throw e;
+        }
+    }
+
+    private SourcePdf readIntoScratchFile(final String key, final long size, final MemoryBudget.Reservation reservation)
+            throws IOException, InterruptedException {
+
+        final Path file = Files.createTempFile(SCRATCH_FILE_PREFIX, SCRATCH_FILE_SUFFIX);
+
+        try {
+
+            if (size >= minRangedReadBytes) {
+
+                try (final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+
+                    readRanges(key, size, (channel, offset, length) -> copyAt(channel, fileChannel, offset, length));
+                }
+
+                return new ScratchFileSourcePdf(file, size, reservation);
+            }
+
+            try (final InputStream stream = Channels.newInputStream(sourceStore.open(key))) {
+
+                return new ScratchFileSourcePdf(file, Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING), reservation);
+            }
+
+        } catch (IOException | InterruptedException | RuntimeException e) {
+
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the object as consecutive ranges on the range pool and waits for all of them. When one fails, or the
+     * caller is interrupted, ranges not started yet are skipped, and the method still returns only once no range
+     * is running: channel reads do not stop on interrupt, and a range left running would keep writing into a buffer
+     * or file already handed back.
+     */
+    private void readRanges(final String key, final long size, final RangeReader reader) throws IOException, InterruptedException {
+
+        final int rangeCount = (int) ((size + RANGE_BYTES - 1) / RANGE_BYTES);
+        final CountDownLatch finished = new CountDownLatch(rangeCount);
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final List<Future<?>> ranges = new ArrayList<>();
+
+        try {
+
+            for (long offset = 0; offset < size; offset += RANGE_BYTES) {
+
+                final long rangeOffset = offset;
+                final long rangeLength = Math.min(RANGE_BYTES, size - offset);
+
+                ranges.add(rangePool.submit(() -> {
+
+                    try {
+
+                        if (aborted.get()) return;
+
+                        try (final ReadableByteChannel channel = sourceStore.openRange(key, rangeOffset, rangeLength)) {
+
+                            reader.read(channel, rangeOffset, rangeLength);
+
+                        } catch (IOException e) {
+
+                            throw new UncheckedIOException(e);
+                        }
+
+                    } finally {
+
+                        finished.countDown();
+                    }
+                }));
+            }
+
+            for (final Future<?> range : ranges) {
+
+                range.get();
+            }
+
+        } catch (ExecutionException e) {
+
+            if (e.getCause() instanceof UncheckedIOException cause) throw cause.getCause();
+
+            throw new IOException("Failed to read " + key, e.getCause());
+
+        } finally {
+
+            aborted.set(true);
+
+            // ranges that were never submitted will not count down themselves
+            for (int unsubmitted = ranges.size(); unsubmitted < rangeCount; unsubmitted++) {
+
+                finished.countDown();
+            }
+
+            Uninterruptibles.awaitUninterruptibly(finished);
+        }
+    }
+
+    private static void readFully(final ReadableByteChannel channel, final ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            if (channel.read(buffer) < 0) throw new IOException("Source object ended early");
+        }
+    }
+
+    /**
+     * Copies {@code length} bytes of the channel to the file from {@code offset}; positional writes let the ranges
+     * share one file channel.
+     */
+    private static void copyAt(final ReadableByteChannel channel, final FileChannel file, long offset, long length) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_BYTES);
+
+        while (length > 0) {
+
+            buffer.limit((int) Math.min(buffer.capacity(), length));
+
+            if (channel.read(buffer) < 0) throw new IOException("Source object ended early");
+
+            buffer.flip();
+            length -= buffer.remaining();
+
+            while (buffer.hasRemaining()) {
+
+                offset += file.write(buffer, offset);
+            }
+
+            buffer.clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeReader {
+
+        void read(ReadableByteChannel channel, long offset, long length) throws IOException;
+    }
+}
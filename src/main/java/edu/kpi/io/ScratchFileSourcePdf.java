@@ -0,0 +1,33 @@
+package edu.kpi.io;
+
+import edu.kpi.pipeline.MemoryBudget;
+import lombok.SneakyThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Source PDF too large to be held in memory, downloaded to a local scratch file and parsed from there.
+ * The file is deleted on {@link #close()}.
+ */
+class ScratchFileSourcePdf extends LocalFileSourcePdf {
+
+    ScratchFileSourcePdf(Path file, long size, MemoryBudget.Reservation reservation) {
+
+        super(file, size, reservation);
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+
+        try {
+
+            Files.deleteIfExists(file);
+
+        } finally {
+
+            super.close();
+        }
+    }
+}
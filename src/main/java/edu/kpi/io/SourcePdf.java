@@ -0,0 +1,25 @@
+package edu.kpi.io;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Downloaded source PDF. Its storage, and the memory reserved for it, are given back on {@link #close()},
+ * so neither the bytes nor anything loaded from them may be used afterwards.
+ */
+public interface SourcePdf extends AutoCloseable {
+
+    long size();
+
+    /**
+     * Parses the PDF; every call returns a new, independent document.
+     */
+    PDDocument load() throws IOException;
+
+    InputStream openStream() throws IOException;
+
+    @Override
+    void close();
+}
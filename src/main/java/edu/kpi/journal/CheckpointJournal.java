@@ -0,0 +1,266 @@
+package edu.kpi.journal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Append-only record of the documents a run has finished, so that a restarted run resumes where the last one stopped.
+ * <p>
+ * Documents are admitted in listing order. Besides the completed and failed IDs the journal keeps a watermark:
+ * the last listed document up to which everything has finished, so the next run can start listing after it.
+ * IDs behind the watermark are dropped when the file is compacted, which happens on open, on close and every
+ * {@code compactEvery} appends. Failed documents are kept, and not retried, until their lines are removed.
+ * <p>
+ * Every line is flushed as it is written. Documents that were admitted but never finished are simply not recorded
+ * and are listed again by the next run.
+ */
+public class CheckpointJournal implements AutoCloseable {
+
+    private static final String COMPLETED = "C";
+    private static final String FAILED = "F";
+    private static final String WATERMARK = "W";
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final int compactEvery;
+    private final Set<String> completed = new HashSet<>();
+    private final Set<String> failed = new HashSet<>();
+    private final ArrayDeque<String> admitted = new ArrayDeque<>();
+    private String watermark;
+    private BufferedWriter writer;
+    private int appendsSinceCompaction;
+    private boolean closed;
+
+    public CheckpointJournal(Path file, int compactEvery) throws IOException {
+
+        this.file = file;
+        this.compactEvery = compactEvery;
+
+        if (Files.exists(file)) {
+
+            load();
+        }
+
+        compact();
+        logResumed();
+    }
+
+    /**
+     * @return ID of the last document up to which every listed one has finished, or {@code null} to list from the start
+     */
+    public synchronized String watermark() {
+
+        return watermark;
+    }
+
+    /**
+     * Registers the next listed document.
+     *
+     * @return {@code false} when an earlier run has already finished it
+     */
+    public synchronized boolean admit(final String documentId) {
+
+        admitted.add(documentId);
+
+        if (isRecorded(documentId)) {
+
+            advanceWatermark();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return whether the document has failed or completed, as far as the journal remembers: completed documents
+     * behind the watermark are forgotten, failed ones are not
+     */
+    public synchronized boolean isFinished(final String documentId) {
+
+        return isRecorded(documentId);
+    }
+
+    public synchronized void markCompleted(final String documentId) {
+
+        record(COMPLETED, documentId, completed);
+    }
+
+    public synchronized void markFailed(final String documentId) {
+
+        record(FAILED, documentId, failed);
+    }
+
+    /**
+     * Forgets an admitted document that this run leaves to another instance, without recording it, so that it
+     * does not hold the watermark back.
+     */
+    public synchronized void release(final String documentId) {
+
+        if (closed) return;
+
+        try {
+
+            admitted.remove(documentId);
+            appendAdvancedWatermark();
+
+        } catch (IOException e) {
+
+            logJournalFailed(documentId, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (!closed) {
+
+            compact();
+            writer.close();
+            closed = true;
+        }
+    }
+
+    private void record(final String status, final String documentId, final Set<String> ids) {
+
+        if (closed) return;
+
+        try {
+
+            ids.add(documentId);
+            append(status, documentId);
+            appendAdvancedWatermark();
+
+        } catch (IOException e) {
+
+            logJournalFailed(documentId, e);
+        }
+    }
+
+    private void appendAdvancedWatermark() throws IOException {
+
+        final String previousWatermark = watermark;
+        advanceWatermark();
+
+        if (watermark != null && !watermark.equals(previousWatermark)) {
+
+            append(WATERMARK, watermark);
+        }
+
+        if (appendsSinceCompaction >= compactEvery) {
+
+            compact();
+        }
+    }
+
+    private boolean isRecorded(final String documentId) {
+
+        return completed.contains(documentId) || failed.contains(documentId);
+    }
+
+    private void advanceWatermark() {
+
+        while (!admitted.isEmpty() && isRecorded(admitted.peek())) {
+
+            final String documentId = admitted.poll();
+            completed.remove(documentId);
+
+            // a collection listed again from the start must not move the watermark back
+            if (watermark == null || documentId.compareTo(watermark) > 0) {
+
+                watermark = documentId;
+            }
+        }
+    }
+
+    private void append(final String status, final String documentId) throws IOException {
+
+        writer.write(status + SEPARATOR + documentId);
+        writer.newLine();
+        writer.flush();
+        appendsSinceCompaction++;
+    }
+
+    private void load() throws IOException {
+
+        for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+
+            final String[] entry = line.split(SEPARATOR, 2);
+
+            if (entry.length < 2) continue;
+
+            switch (entry[0]) {
+                case COMPLETED -> completed.add(entry[1]);
+                case FAILED -> failed.add(entry[1]);
+                case WATERMARK -> watermark = entry[1];
+                default -> {
+                    // unknown or torn line from an interrupted write
+                }
+            }
+        }
+
+        // completed IDs listed before the watermark are never listed again; auto-generated IDs compare the same way as in Firestore
+        if (watermark != null) {
+
+            completed.removeIf(documentId -> documentId.compareTo(watermark) <= 0);
+        }
+    }
+
+    private void compact() throws IOException {
+
+        if (writer != null) {
+
+            writer.close();
+        }
+
+        final Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+
+        try (final BufferedWriter output = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+
+            if (watermark != null) {
+
+                output.write(WATERMARK + SEPARATOR + watermark);
+                output.newLine();
+            }
+
+            for (final String documentId : completed) {
+
+                output.write(COMPLETED + SEPARATOR + documentId);
+                output.newLine();
+            }
+
+            for (final String documentId : failed) {
+
+                output.write(FAILED + SEPARATOR + documentId);
+                output.newLine();
+            }
+        }
+
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        appendsSinceCompaction = 0;
+    }
+
+    private void logResumed() {
+
+        if (watermark != null || !completed.isEmpty() || !failed.isEmpty()) {
+
+            System.out.println("Resuming after " + watermark + " with " + completed.size() + " completed and "
+                    + failed.size() + " failed documents from " + file);
+        }
+    }
+
+    private void logJournalFailed(final String documentId, final IOException e) {
+
+        System.err.print(e);
+        System.out.println("Failed to journal " + documentId);
+    }
+}
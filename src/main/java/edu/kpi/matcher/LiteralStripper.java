@@ -0,0 +1,188 @@
+package edu.kpi.matcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Removes every occurrence of a fixed set of literal strings from a text in one scan (Aho-Corasick).
+ * <p>
+ * Patterns are matched as plain text, never as regular expressions. Where occurrences overlap, the one starting
+ * first wins, and of those starting at the same position the longest. Build one instance per pattern set and
+ * reuse it; after construction it is immutable and safe to share between threads.
+ */
+public class LiteralStripper {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final char[][] edgeLabels;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final int[] outputLink;
+    private final int[] patternLength;
+
+    public LiteralStripper(final Collection<String> patterns) {
+
+        final List<TreeMap<Character, Integer>> trie = buildTrie(patterns);
+        final int nodeCount = trie.size();
+
+        this.edgeLabels = new char[nodeCount][];
+        this.edgeTargets = new int[nodeCount][];
+        this.failure = new int[nodeCount];
+        this.outputLink = new int[nodeCount];
+        this.patternLength = new int[nodeCount];
+
+        for (int node = 0; node < nodeCount; node++) {
+
+            final TreeMap<Character, Integer> children = trie.get(node);
+
+            edgeLabels[node] = new char[children.size()];
+            edgeTargets[node] = new int[children.size()];
+
+            int edge = 0;
+
+            for (final Map.Entry<Character, Integer> child : children.entrySet()) {
+
+                edgeLabels[node][edge] = child.getKey();
+                edgeTargets[node][edge] = child.getValue();
+                edge++;
+            }
+        }
+
+        for (final String pattern : patterns) {
+
+            if (!pattern.isEmpty()) patternLength[find(pattern)] = pattern.length();
+        }
+
+        linkFailures();
+    }
+
+    public String strip(final String text) {
+
+        int[] longestMatchAt = null;
+        int node = ROOT;
+
+        for (int index = 0; index < text.length(); index++) {
+
+            node = step(node, text.charAt(index));
+
+            for (int match = patternLength[node] > 0 ? node : outputLink[node]; match != NONE; match = outputLink[match]) {
+
+                final int start = index - patternLength[match] + 1;
+
+                if (longestMatchAt == null) longestMatchAt = new int[text.length()];
+
+                longestMatchAt[start] = Math.max(longestMatchAt[start], patternLength[match]);
+            }
+        }
+
+        if (longestMatchAt == null) return text;
+
+        final StringBuilder result = new StringBuilder(text.length());
+
+        for (int index = 0; index < text.length(); ) {
+
+            if (longestMatchAt[index] > 0) {
+
+                index += longestMatchAt[index];
+
+            } else {
+
+                result.append(text.charAt(index++));
+            }
+        }
+
+        return result.toString();
+    }
+
+    private List<TreeMap<Character, Integer>> buildTrie(final Collection<String> patterns) {
+
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        trie.add(new TreeMap<>());
+
+        for (final String pattern : patterns) {
+
+            int node = ROOT;
+
+            for (int index = 0; index < pattern.length(); index++) {
+
+                final Integer next = trie.get(node).get(pattern.charAt(index));
+
+                if (next == null) {
+
+                    trie.get(node).put(pattern.charAt(index), trie.size());
+                    node = trie.size();
+                    trie.add(new TreeMap<>());
+
+                } else {
+
+                    node = next;
+                }
+            }
+        }
+
+        return trie;
+    }
+
+    private int find(final String pattern) {
+
+        int node = ROOT;
+
+        for (int index = 0; index < pattern.length(); index++) {
+
+            node = child(node, pattern.charAt(index));
+        }
+
+        return node;
+    }
+
+    private void linkFailures() {
+
+        final Queue<Integer> queue = new ArrayDeque<>();
+
+        failure[ROOT] = ROOT;
+        outputLink[ROOT] = NONE;
+        queue.add(ROOT);
+
+        while (!queue.isEmpty()) {
+
+            final int node = queue.poll();
+
+            for (int edge = 0; edge < edgeLabels[node].length; edge++) {
+
+                final int target = edgeTargets[node][edge];
+
+                failure[target] = node == ROOT ? ROOT : step(failure[node], edgeLabels[node][edge]);
+                outputLink[target] = patternLength[failure[target]] > 0 ? failure[target] : outputLink[failure[target]];
+
+                queue.add(target);
+            }
+        }
+    }
+
+    private int step(int node, final char c) {
+
+        while (true) {
+
+            final int next = child(node, c);
+
+            if (next != NONE) return next;
+            if (node == ROOT) return ROOT;
+
+            node = failure[node];
+        }
+    }
+
+    private int child(final int node, final char c) {
+
+        final int edge = Arrays.binarySearch(edgeLabels[node], c);
+
+        return edge >= 0 ? edgeTargets[node][edge] : NONE;
+    }
+}
@@ -0,0 +1,136 @@
+package edu.kpi.metrics;
+
+import edu.kpi.pipeline.AdaptiveLimiter;
+import edu.kpi.pipeline.MemoryBudget;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntSupplier;
+
+/**
+ * The metrics of a conversion run, under the {@code converter_} prefix.
+ */
+public class ConversionMetrics {
+
+    private static final String PREFIX = "converter_";
+
+    private final MetricsRegistry registry;
+    private final Counter downloadedBytes;
+    private final Counter pages;
+    private final RateMeter completedRate = new RateMeter();
+
+    public ConversionMetrics(MetricsRegistry registry) {
+
+        this.registry = registry;
+        this.downloadedBytes = registry.counter(PREFIX + "downloaded_bytes_total", "Bytes of source documents downloaded");
+        this.pages = registry.counter(PREFIX + "pages_total", "Pages of source documents parsed");
+
+        registry.gauge(PREFIX + "documents_per_minute", "Documents completed over the last minute", completedRate::perMinute);
+    }
+
+    public MetricsRegistry registry() {
+
+        return registry;
+    }
+
+    public void recordStage(final Stage stage, final long nanos) {
+
+        registry.histogram(PREFIX + "stage_seconds", "Time spent per document in each stage", "stage", stage.label())
+                .observeNanos(nanos);
+    }
+
+    public void recordDownload(final long bytes) {
+
+        downloadedBytes.add(bytes);
+    }
+
+    public void recordPages(final int count) {
+
+        pages.add(count);
+    }
+
+    public void recordOutcome(final Outcome outcome) {
+
+        registry.counter(PREFIX + "documents_total", "Documents by final outcome", "outcome", outcome.label()).increment();
+
+        if (outcome == Outcome.COMPLETED) {
+
+            completedRate.mark();
+        }
+    }
+
+    public void recordCache(final boolean hit) {
+
+        registry.counter(PREFIX + "cache_lookups_total", "Result cache lookups", "result", hit ? "hit" : "miss").increment();
+    }
+
+    public void recordRetry(final Throwable cause) {
+
+        registry.counter(PREFIX + "retries_total", "Attempts retried, by cause", "cause", causeOf(cause)).increment();
+    }
+
+    public void recordFailure(final Throwable cause) {
+
+        registry.counter(PREFIX + "failures_total", "Documents given up on, by cause", "cause", causeOf(cause)).increment();
+    }
+
+    /**
+     * @param queues current depth of each stage queue, by stage name
+     */
+    public void registerQueues(final Map<String, IntSupplier> queues, final IntSupplier inFlight) {
+
+        queues.forEach((stage, depth) ->
+                registry.gauge(PREFIX + "queue_depth", "Tasks waiting for each stage", "stage", stage, depth::getAsInt));
+
+        registry.gauge(PREFIX + "documents_in_flight", "Documents admitted and not yet finished", inFlight::getAsInt);
+    }
+
+    public void registerLimiter(final AdaptiveLimiter limiter) {
+
+        registry.gauge(PREFIX + "concurrency_limit", "Current limit of each adaptive limiter", "limiter", limiter.name(), limiter::limit);
+        registry.gauge(PREFIX + "concurrency_in_flight", "Calls admitted by each adaptive limiter", "limiter", limiter.name(), limiter::inFlight);
+    }
+
+    public void registerMemoryBudget(final MemoryBudget memoryBudget) {
+
+        registry.gauge(PREFIX + "memory_budget_bytes", "Heap set aside for the documents being converted", memoryBudget::capacityBytes);
+        registry.gauge(PREFIX + "memory_reserved_bytes", "Heap reserved by the documents being converted", memoryBudget::reservedBytes);
+    }
+
+    /**
+     * Wrapper exceptions say nothing about where a failure came from, so the innermost cause is reported.
+     */
+    private String causeOf(final Throwable throwable) {
+
+        Throwable cause = throwable;
+
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException
+                || cause.getClass() == RuntimeException.class) && cause.getCause() != null) {
+
+            cause = cause.getCause();
+        }
+
+        return cause.getClass().getSimpleName();
+    }
+
+    public enum Stage {
+
+        LISTING, METADATA, CACHE, DOWNLOAD, EXTRACTION, SEGMENTATION, WRITE;
+
+        String label() {
+
+            return name().toLowerCase();
+        }
+    }
+
+    public enum Outcome {
+
+        COMPLETED, SKIPPED, FAILED, ABANDONED;
+
+        String label() {
+
+            return name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package edu.kpi.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+
+        value.increment();
+    }
+
+    public void add(final long amount) {
+
+        value.add(amount);
+    }
+
+    public long get() {
+
+        return value.sum();
+    }
+}
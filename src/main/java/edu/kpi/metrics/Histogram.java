@@ -0,0 +1,80 @@
+package edu.kpi.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed bucket bounds in seconds, cumulative on export as Prometheus expects.
+ */
+public class Histogram {
+
+    static final double[] LATENCY_BOUNDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    public Histogram(double[] bounds) {
+
+        this.bounds = bounds;
+        this.buckets = new LongAdder[bounds.length];
+
+        for (int i = 0; i < bounds.length; i++) {
+
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observeNanos(final long nanos) {
+
+        observe(nanos / 1e9);
+    }
+
+    public void observe(final double seconds) {
+
+        for (int i = 0; i < bounds.length; i++) {
+
+            if (seconds <= bounds[i]) {
+
+                buckets[i].increment();
+                break;
+            }
+        }
+
+        count.increment();
+        sum.add(seconds);
+    }
+
+    double[] bounds() {
+
+        return bounds;
+    }
+
+    /**
+     * @return observations at or below each bound, in bound order
+     */
+    long[] cumulativeCounts() {
+
+        final long[] result = new long[bounds.length];
+        long total = 0;
+
+        for (int i = 0; i < bounds.length; i++) {
+
+            total += buckets[i].sum();
+            result[i] = total;
+        }
+
+        return result;
+    }
+
+    long count() {
+
+        return count.sum();
+    }
+
+    double sum() {
+
+        return sum.sum();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.kpi.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically replaces a JSON file with the current state of the registry, for runs nobody scrapes.
+ * A last snapshot is written on close.
+ */
+public class JsonSnapshotWriter implements AutoCloseable {
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+        final Thread thread = new Thread(runnable, "metrics-snapshot");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    public JsonSnapshotWriter(MetricsRegistry registry, Path file, Duration interval) {
+
+        this.registry = registry;
+        this.file = file;
+
+        scheduler.scheduleAtFixedRate(this::writeSnapshot, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void writeSnapshot() {
+
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+
+            try (final Writer output = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+
+                output.write("{\"timestamp\":\"" + Instant.now() + "\",\"metrics\":");
+                registry.writeJson(output);
+                output.write("}\n");
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+
+            System.err.print(e);
+            System.out.println("Failed to write metrics snapshot to " + file);
+        }
+    }
+
+    @Override
+    public void close() {
+
+        scheduler.shutdownNow();
+        writeSnapshot();
+    }
+}
@@ -0,0 +1,53 @@
+package edu.kpi.metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The metrics of a run and where they are exported: always a JSON snapshot file, and a Prometheus endpoint when
+ * a port is given. Closing it stops both and writes the last snapshot.
+ */
+public class MetricsExport implements AutoCloseable {
+
+    /**
+     * Port value that leaves the Prometheus endpoint off.
+     */
+    public static final int NO_PORT = 0;
+
+    private final ConversionMetrics metrics;
+    private final JsonSnapshotWriter snapshots;
+    private final PrometheusEndpoint endpoint;
+
+    public MetricsExport(ConversionMetrics metrics, Path snapshotFile, Duration snapshotInterval, int port) throws IOException {
+
+        this.metrics = metrics;
+        this.snapshots = new JsonSnapshotWriter(metrics.registry(), snapshotFile, snapshotInterval);
+
+        try {
+
+            this.endpoint = port == NO_PORT ? null : new PrometheusEndpoint(metrics.registry(), port);
+
+        } catch (IOException e) {
+
+            snapshots.close();
+            throw e;
+        }
+    }
+
+    public ConversionMetrics metrics() {
+
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+
+        if (endpoint != null) {
+
+            endpoint.close();
+        }
+
+        snapshots.close();
+    }
+}
@@ -0,0 +1,186 @@
+package edu.kpi.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Named metrics with at most one label each, exported in the Prometheus text format or as JSON.
+ * Metrics are created on first use and live for the whole run.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public Counter counter(final String name, final String help) {
+
+        return counter(name, help, null, null);
+    }
+
+    public Counter counter(final String name, final String help, final String labelName, final String labelValue) {
+
+        return family(name, help, Type.COUNTER, labelName).metric(labelValue, value -> new Counter());
+    }
+
+    public Histogram histogram(final String name, final String help, final String labelName, final String labelValue) {
+
+        return family(name, help, Type.HISTOGRAM, labelName).metric(labelValue, value -> new Histogram(Histogram.LATENCY_BOUNDS));
+    }
+
+    public void gauge(final String name, final String help, final DoubleSupplier value) {
+
+        gauge(name, help, null, null, value);
+    }
+
+    public void gauge(final String name, final String help, final String labelName, final String labelValue, final DoubleSupplier value) {
+
+        family(name, help, Type.GAUGE, labelName).metric(labelValue, label -> value);
+    }
+
+    public void writePrometheus(final Writer output) throws IOException {
+
+        for (final Map.Entry<String, Family> entry : families.entrySet()) {
+
+            final String name = entry.getKey();
+            final Family family = entry.getValue();
+
+            output.write("# HELP " + name + " " + family.help + "\n");
+            output.write("# TYPE " + name + " " + family.type.name().toLowerCase() + "\n");
+
+            for (final Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+
+                final String label = family.labelName == null ? "" : family.labelName + "=\"" + metric.getKey() + "\"";
+
+                switch (family.type) {
+                    case COUNTER -> output.write(name + braces(label) + " " + ((Counter) metric.getValue()).get() + "\n");
+                    case GAUGE -> output.write(name + braces(label) + " " + ((DoubleSupplier) metric.getValue()).getAsDouble() + "\n");
+                    case HISTOGRAM -> writePrometheusHistogram(output, name, label, (Histogram) metric.getValue());
+                }
+            }
+        }
+    }
+
+    public void writeJson(final Writer output) throws IOException {
+
+        output.write("{");
+
+        for (final Iterator<Map.Entry<String, Family>> families = this.families.entrySet().iterator(); families.hasNext(); ) {
+
+            final Map.Entry<String, Family> entry = families.next();
+            final Family family = entry.getValue();
+
+            if (family.labelName == null) {
+
+                output.write("\"" + entry.getKey() + "\":" + toJson(family.metrics.get(Family.UNLABELLED)));
+
+                if (families.hasNext()) output.write(",");
+
+                continue;
+            }
+
+            output.write("\"" + entry.getKey() + "\":{");
+
+            for (final Iterator<Map.Entry<String, Object>> metrics = family.metrics.entrySet().iterator(); metrics.hasNext(); ) {
+
+                final Map.Entry<String, Object> metric = metrics.next();
+
+                output.write("\"" + escapeJson(metric.getKey()) + "\":" + toJson(metric.getValue()));
+
+                if (metrics.hasNext()) output.write(",");
+            }
+
+            output.write("}");
+
+            if (families.hasNext()) output.write(",");
+        }
+
+        output.write("}\n");
+    }
+
+    private Family family(final String name, final String help, final Type type, final String labelName) {
+
+        return families.computeIfAbsent(name, key -> new Family(help, type, labelName));
+    }
+
+    private void writePrometheusHistogram(final Writer output, final String name, final String label, final Histogram histogram) throws IOException {
+
+        final String prefix = label.isEmpty() ? "" : label + ",";
+        final double[] bounds = histogram.bounds();
+        final long[] counts = histogram.cumulativeCounts();
+
+        for (int i = 0; i < bounds.length; i++) {
+
+            output.write(name + "_bucket{" + prefix + "le=\"" + bounds[i] + "\"} " + counts[i] + "\n");
+        }
+
+        output.write(name + "_bucket{" + prefix + "le=\"+Inf\"} " + histogram.count() + "\n");
+        output.write(name + "_sum" + braces(label) + " " + histogram.sum() + "\n");
+        output.write(name + "_count" + braces(label) + " " + histogram.count() + "\n");
+    }
+
+    private String toJson(final Object metric) {
+
+        if (metric instanceof Counter counter) {
+
+            return String.valueOf(counter.get());
+        }
+
+        if (metric instanceof DoubleSupplier gauge) {
+
+            return String.valueOf(gauge.getAsDouble());
+        }
+
+        final Histogram histogram = (Histogram) metric;
+        final StringBuilder buckets = new StringBuilder();
+        final double[] bounds = histogram.bounds();
+        final long[] counts = histogram.cumulativeCounts();
+
+        for (int i = 0; i < bounds.length; i++) {
+
+            buckets.append(i == 0 ? "" : ",").append("\"").append(bounds[i]).append("\":").append(counts[i]);
+        }
+
+        return "{\"count\":" + histogram.count() + ",\"sum\":" + histogram.sum() + ",\"buckets\":{" + buckets + "}}";
+    }
+
+    private String braces(final String label) {
+
+        return label.isEmpty() ? "" : "{" + label + "}";
+    }
+
+    private String escapeJson(final String value) {
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private static class Family {
+
+        private static final String UNLABELLED = "";
+
+        private final String help;
+        private final Type type;
+        private final String labelName;
+        private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+        private Family(String help, Type type, String labelName) {
+
+            this.help = help;
+            this.type = type;
+            this.labelName = labelName;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T metric(final String labelValue, final Function<String, T> factory) {
+
+            return (T) metrics.computeIfAbsent(labelValue == null ? UNLABELLED : labelValue, factory);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.kpi.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the registry at {@code /metrics} in the Prometheus text format, on the JDK HTTP server.
+ */
+public class PrometheusEndpoint implements AutoCloseable {
+
+    private static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+
+    public PrometheusEndpoint(MetricsRegistry registry, int port) throws IOException {
+
+        this.registry = registry;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+
+        final StringWriter body = new StringWriter();
+        registry.writePrometheus(body);
+
+        final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, bytes.length);
+
+        try (final OutputStream output = exchange.getResponseBody()) {
+
+            output.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+
+        server.stop(0);
+    }
+}
@@ -0,0 +1,49 @@
+package edu.kpi.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Events over the last minute, counted in one-second slots that are reused as the clock moves on.
+ */
+public class RateMeter {
+
+    private static final int SLOTS = 60;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+    private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+
+    public void mark() {
+
+        final long now = currentSecond();
+        final int slot = (int) (now % SLOTS);
+        final long slotSecond = seconds.get(slot);
+
+        if (slotSecond != now && seconds.compareAndSet(slot, slotSecond, now)) {
+
+            counts.set(slot, 0);
+        }
+
+        counts.incrementAndGet(slot);
+    }
+
+    public long perMinute() {
+
+        final long now = currentSecond();
+        long total = 0;
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+
+            if (now - seconds.get(slot) < SLOTS) {
+
+                total += counts.get(slot);
+            }
+        }
+
+        return total;
+    }
+
+    private long currentSecond() {
+
+        return System.currentTimeMillis() / 1000;
+    }
+}
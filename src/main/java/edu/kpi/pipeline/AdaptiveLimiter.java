@@ -0,0 +1,223 @@
+package edu.kpi.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit around a backend call, adjusted from what the calls observe (AIMD with a latency gradient).
+ * <p>
+ * While the limit is in use and latency stays near its baseline, the limit grows by one per limit's
+ * worth of successful calls. It shrinks by {@link #LATENCY_BACKOFF} when the short-term latency rises past
+ * {@link #LATENCY_TOLERANCE} times the baseline, and by {@link #ERROR_BACKOFF} when a call fails, at most once per
+ * {@link #DECREASE_COOLDOWN_NANOS}. The limit always stays within {@code [minLimit, maxLimit]}.
+ * <p>
+ * Latency is compared per unit of cost, so calls of very different sizes (e.g. downloads, costed in MiB) are comparable.
+ */
+public class AdaptiveLimiter {
+
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double ERROR_BACKOFF = 0.5;
+    private static final double SHORT_WINDOW_WEIGHT = 0.2;
+    private static final double BASELINE_DRIFT_PER_SECOND = 0.01;
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private double shortLatency;
+    private double longLatency;
+    private long lastDecrease;
+    private long lastSample;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+    }
+
+    public String name() {
+
+        return name;
+    }
+
+    /**
+     * Blocks until the call fits under the current limit.
+     */
+    public Permit acquire() throws InterruptedException {
+
+        lock.lock();
+
+        try {
+
+            while (inFlight >= (int) limit) {
+
+                released.await();
+            }
+
+            return admit();
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a permit, or {@code null} when the limit is reached
+     */
+    public Permit tryAcquire() {
+
+        lock.lock();
+
+        try {
+
+            return inFlight < (int) limit ? admit() : null;
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+
+        lock.lock();
+
+        try {
+
+            return (int) limit;
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+
+        lock.lock();
+
+        try {
+
+            return inFlight;
+
+        } finally {
+
+            lock.unlock();
+        }
+    }
+
+    private Permit admit() {
+
+        inFlight++;
+
+        return new Permit(inFlight >= (int) limit);
+    }
+
+    private void onSuccess(final Permit permit, final double latencyPerUnit) {
+
+        shortLatency = shortLatency == 0 ? latencyPerUnit : shortLatency + SHORT_WINDOW_WEIGHT * (latencyPerUnit - shortLatency);
+
+        // the baseline follows improvements at once but drifts up only by a small share per second, however many
+        // calls complete, so sustained queueing keeps showing while a genuine change in the backend is adopted in time
+        final long now = System.nanoTime();
+
+        longLatency = longLatency == 0 || shortLatency < longLatency
+                ? shortLatency
+                : Math.min(shortLatency, longLatency * (1 + BASELINE_DRIFT_PER_SECOND * (now - lastSample) / 1e9));
+        lastSample = now;
+
+        if (shortLatency > longLatency * LATENCY_TOLERANCE) {
+
+            decrease(LATENCY_BACKOFF);
+
+        } else if (permit.atLimit) {
+
+            // the limit was actually the constraint, so probe one step higher over the next limit's worth of calls
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    private void decrease(final double ratio) {
+
+        final long now = System.nanoTime();
+
+        if (now - lastDecrease >= DECREASE_COOLDOWN_NANOS) {
+
+            limit = Math.max(minLimit, limit * ratio);
+            lastDecrease = now;
+        }
+    }
+
+    /**
+     * One admitted call. Exactly one of the completion methods should be called when the call ends.
+     */
+    public class Permit {
+
+        private final long start = System.nanoTime();
+        private final boolean atLimit;
+        private boolean completed;
+
+        private Permit(boolean atLimit) {
+
+            this.atLimit = atLimit;
+        }
+
+        public void success() {
+
+            success(1);
+        }
+
+        /**
+         * @param cost size of the call in the limiter's unit, latency is compared per unit
+         */
+        public void success(final double cost) {
+
+            complete(() -> onSuccess(this, (System.nanoTime() - start) / Math.max(cost, 1)));
+        }
+
+        /**
+         * The backend failed or rejected the call.
+         */
+        public void dropped() {
+
+            complete(() -> decrease(ERROR_BACKOFF));
+        }
+
+        /**
+         * The call ended for reasons that say nothing about the backend.
+         */
+        public void ignore() {
+
+            complete(() -> {});
+        }
+
+        private void complete(final Runnable update) {
+
+            lock.lock();
+
+            try {
+
+                if (completed) return;
+
+                completed = true;
+                inFlight--;
+                update.run();
+                released.signalAll();
+
+            } finally {
+
+                lock.unlock();
+            }
+        }
+    }
+}
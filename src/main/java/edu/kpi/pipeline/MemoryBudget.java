@@ -0,0 +1,73 @@
+package edu.kpi.pipeline;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Heap set aside for the documents being converted. Each document reserves its expected footprint before it is
+ * loaded and gives it back once its sources are released, so however large the documents and whatever order they
+ * arrive in, their sum stays under {@code capacityBytes}.
+ * <p>
+ * Reservations are granted first come, first served: a large document waiting for room holds back the smaller
+ * ones behind it instead of being overtaken forever. A reservation larger than the whole budget is cut down to it,
+ * so such a document runs alone.
+ */
+public class MemoryBudget {
+
+    private static final int BYTES_PER_UNIT = 1024;
+
+    private final long capacityBytes;
+    private final int capacityUnits;
+    private final Semaphore units;
+
+    public MemoryBudget(long capacityBytes) {
+
+        this.capacityUnits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, capacityBytes / BYTES_PER_UNIT));
+        this.capacityBytes = (long) capacityUnits * BYTES_PER_UNIT;
+        this.units = new Semaphore(capacityUnits, true);
+    }
+
+    /**
+     * Blocks until {@code bytes} fit in the budget.
+     */
+    public Reservation reserve(final long bytes) throws InterruptedException {
+
+        final int reserved = (int) Math.min(capacityUnits, Math.max(1, (bytes + BYTES_PER_UNIT - 1) / BYTES_PER_UNIT));
+
+        units.acquire(reserved);
+
+        return new Reservation(reserved);
+    }
+
+    public long capacityBytes() {
+
+        return capacityBytes;
+    }
+
+    public long reservedBytes() {
+
+        return (long) (capacityUnits - units.availablePermits()) * BYTES_PER_UNIT;
+    }
+
+    /**
+     * Part of the budget held by one document. Closing it more than once has no further effect.
+     */
+    public class Reservation implements AutoCloseable {
+
+        private final int reserved;
+        private boolean released;
+
+        private Reservation(int reserved) {
+
+            this.reserved = reserved;
+        }
+
+        @Override
+        public synchronized void close() {
+
+            if (released) return;
+
+            released = true;
+            units.release(reserved);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package edu.kpi.pipeline;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.firestore.BulkWriterException;
+import edu.kpi.process.ProcessExecutionException;
+import io.grpc.Status;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides which failures are worth another attempt and how long to wait before it.
+ * <p>
+ * Only failures the next attempt can plausibly avoid are transient: retryable backend errors, I/O errors
+ * of network calls and timeouts. Everything else, in particular a document the parsers reject, fails the same
+ * way every time and is given up on at once. Waits grow exponentially from {@code baseDelay} up to {@code maxDelay},
+ * with full jitter so that tasks failing together do not come back together.
+ */
+public class RetryPolicy {
+
+    private static final Set<Status.Code> TRANSIENT_CODES = Set.of(Status.Code.ABORTED, Status.Code.DEADLINE_EXCEEDED,
+            Status.Code.INTERNAL, Status.Code.RESOURCE_EXHAUSTED, Status.Code.UNAVAILABLE);
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @param usedAttempts attempts made so far, the failed one included
+     */
+    public boolean shouldRetry(final Throwable e, final int usedAttempts) {
+
+        return usedAttempts < maxAttempts && isTransient(e);
+    }
+
+    /**
+     * Like {@link #shouldRetry} for failures while parsing input already in memory, where a plain I/O error means
+     * a malformed document rather than a flaky connection. Only timeouts, which depend on the load of the machine,
+     * and retryable errors of backend calls made along the way are retried.
+     */
+    public boolean shouldRetryLocal(final Throwable e, final int usedAttempts) {
+
+        return usedAttempts < maxAttempts && isTransientLocal(e);
+    }
+
+    /**
+     * @param usedAttempts attempts made so far, the failed one included
+     * @return a random wait of up to {@code baseDelay * 2^(usedAttempts - 1)}, capped at {@code maxDelay}
+     */
+    public Duration backoff(final int usedAttempts) {
+
+        final long ceiling = baseDelay.toNanos() << Math.min(Math.max(usedAttempts - 1, 0), 20);
+
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(Math.min(ceiling, maxDelay.toNanos()) + 1));
+    }
+
+    public static boolean isTransient(final Throwable throwable) {
+
+        final Throwable e = unwrap(throwable);
+
+        return isRetryableBackendError(e) || isTimeout(e) || (e instanceof IOException && !(e instanceof ProcessExecutionException));
+    }
+
+    /**
+     * {@link #isTransient} for failures while parsing input already in memory, see {@link #shouldRetryLocal}.
+     */
+    public static boolean isTransientLocal(final Throwable throwable) {
+
+        final Throwable e = unwrap(throwable);
+
+        return isTimeout(e) || isRetryableBackendError(e);
+    }
+
+    private static boolean isRetryableBackendError(final Throwable e) {
+
+        if (e instanceof BulkWriterException writeError) {
+
+            return TRANSIENT_CODES.contains(writeError.getStatus().getCode());
+
+        } else if (e instanceof ApiException apiError) {
+
+            return apiError.isRetryable();
+
+        } else if (e instanceof BaseServiceException serviceError) {
+
+            return serviceError.isRetryable() || serviceError.getCause() instanceof IOException;
+        }
+
+        return false;
+    }
+
+    private static boolean isTimeout(final Throwable e) {
+
+        return e instanceof TimeoutException
+                || e instanceof ProcessExecutionException processError && processError.timedOut();
+    }
+
+    /**
+     * Wrapper exceptions say nothing about the failure, so the innermost cause is classified.
+     */
+    private static Throwable unwrap(final Throwable throwable) {
+
+        Throwable e = throwable;
+
+        while ((e instanceof ExecutionException || e instanceof CompletionException || e instanceof UncheckedIOException
+                || e.getClass() == RuntimeException.class) && e.getCause() != null) {
+
+            e = e.getCause();
+        }
+
+        return e;
+    }
+}
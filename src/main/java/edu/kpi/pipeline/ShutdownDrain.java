@@ -0,0 +1,89 @@
+package edu.kpi.pipeline;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns SIGTERM into an orderly stop: new documents are no longer admitted, the registered drain action gets to finish
+ * or abandon the in-flight ones, and the JVM is held for up to {@code flushTimeout} more while the run closes its
+ * writers. Spot VMs get about 30 seconds between the preemption notice and the hard stop.
+ */
+public class ShutdownDrain implements AutoCloseable {
+
+    private final Duration flushTimeout;
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final Thread hook = new Thread(this::drain, "shutdown-drain");
+    private volatile boolean stopping;
+    private volatile Runnable drainAction = () -> {};
+
+    public ShutdownDrain(Duration flushTimeout) {
+
+        this.flushTimeout = flushTimeout;
+
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    public boolean isStopping() {
+
+        return stopping;
+    }
+
+    /**
+     * @param drainAction run on the shutdown hook thread; it should return once in-flight work is finished or abandoned
+     */
+    public void onStop(Runnable drainAction) {
+
+        this.drainAction = drainAction;
+    }
+
+    private void drain() {
+
+        stopping = true;
+        logDraining();
+
+        drainAction.run();
+
+        try {
+
+            if (!closed.await(flushTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+
+                logFlushTimedOut();
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Marks the run as closed, letting a pending shutdown proceed.
+     */
+    @Override
+    public void close() {
+
+        closed.countDown();
+
+        if (!stopping) {
+
+            try {
+
+                Runtime.getRuntime().removeShutdownHook(hook);
+
+            } catch (IllegalStateException e) {
+                // shutdown already in progress
+            }
+        }
+    }
+
+    private void logDraining() {
+
+        System.out.println("Shutdown requested, draining in-flight documents");
+    }
+
+    private void logFlushTimedOut() {
+
+        System.out.println("Shutdown deadline reached before the run was closed");
+    }
+}
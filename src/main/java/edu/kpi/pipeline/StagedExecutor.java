@@ -0,0 +1,297 @@
+package edu.kpi.pipeline;
+
+import lombok.SneakyThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs {@link StagedTask}s on three pools connected by bounded queues: blocking fetches on a wide I/O pool,
+ * parsing on a pool sized to the cores, and writes on a small I/O pool. A stage that finds the next queue full
+ * waits for room, so downloads never run further ahead of the parsers than the queue allows and the parse threads
+ * are not held up by network calls. At most {@code maxInFlight} tasks are admitted at once.
+ * <p>
+ * A failed stage is run again on its own pool after the wait its task asks for, the task keeping its admission meanwhile.
+ */
+public class StagedExecutor implements AutoCloseable {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor fetchPool;
+    private final ThreadPoolExecutor processPool;
+    private final ThreadPoolExecutor writePool;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService retryTimer;
+    private final Set<StagedTask> waitingToRetry = ConcurrentHashMap.newKeySet();
+    private volatile boolean drained;
+
+    public StagedExecutor(int fetchThreads, int processThreads, int writeThreads, int queueCapacity, int maxInFlight) {
+
+        this.maxInFlight = Math.max(1, maxInFlight);
+        // every admitted task, retries included, fits in the fetch queue, so handing a retry back never blocks
+        this.fetchPool = createPool("fetch", fetchThreads, this.maxInFlight);
+        this.processPool = createPool("process", processThreads, queueCapacity);
+        this.writePool = createPool("write", writeThreads, queueCapacity);
+        this.inFlight = new Semaphore(this.maxInFlight);
+        this.retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+            final Thread thread = new Thread(runnable, "retry-timer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Blocks the caller until there is room for one more task, then hands it to the fetch stage.
+     *
+     * @return {@code false} when the executor has been shut down in the meantime and the task was not admitted
+     */
+    @SneakyThrows
+    public boolean submit(final StagedTask task) {
+
+        inFlight.acquire();
+
+        try {
+
+            fetchPool.execute(() -> fetch(task));
+            return true;
+
+        } catch (RejectedExecutionException e) {
+
+            inFlight.release();
+
+            if (fetchPool.isShutdown()) return false;
+
+            throw e;
+        }
+    }
+
+    private void fetch(final StagedTask task) {
+
+        runStage(task, task::fetch, fetchPool, () -> processPool.execute(() -> process(task)));
+    }
+
+    private void process(final StagedTask task) {
+
+        runStage(task, task::process, processPool, () -> writePool.execute(() -> write(task)));
+    }
+
+    /**
+     * The write pool only hands the results over; the task keeps its admission until they are stored, and a failed
+     * write is retried on the write pool like a failed stage.
+     */
+    private void write(final StagedTask task) {
+
+        try {
+
+            task.write().whenComplete((ignored, failure) -> {
+
+                if (failure == null) {
+
+                    inFlight.release();
+
+                } else {
+
+                    failed(task, failure instanceof Exception e ? e : new ExecutionException(failure), writePool, () -> write(task));
+                }
+            });
+
+        } catch (Exception e) {
+
+            failed(task, e, writePool, () -> write(task));
+        }
+    }
+
+    private void runStage(final StagedTask task, final StagedTask.Stage stage, final ThreadPoolExecutor pool, final Runnable next) {
+
+        try {
+
+            stage.run();
+            next.run();
+
+        } catch (RejectedExecutionException e) {
+
+            // shut down while the task was between stages
+            inFlight.release();
+
+        } catch (Exception e) {
+
+            failed(task, e, pool, () -> runStage(task, stage, pool, next));
+        }
+    }
+
+    private void failed(final StagedTask task, final Exception e, final ThreadPoolExecutor pool, final Runnable attempt) {
+
+        final Duration delay = task.retry(e);
+
+        if (delay == null) {
+
+            inFlight.release();
+
+        } else {
+
+            retryLater(task, delay, pool, attempt);
+        }
+    }
+
+    private void retryLater(final StagedTask task, final Duration delay, final ThreadPoolExecutor pool, final Runnable attempt) {
+
+        waitingToRetry.add(task);
+
+        try {
+
+            retryTimer.schedule(() -> {
+
+                if (waitingToRetry.remove(task)) {
+
+                    resubmit(pool, attempt);
+                }
+
+            }, delay.toNanos(), TimeUnit.NANOSECONDS);
+
+        } catch (RejectedExecutionException e) {
+
+            abandon(task);
+        }
+    }
+
+    private void resubmit(final ThreadPoolExecutor pool, final Runnable attempt) {
+
+        try {
+
+            // the fetch queue holds every admitted task, later stages may make the timer wait for room like any handover
+            pool.execute(attempt);
+
+        } catch (RejectedExecutionException e) {
+
+            // drained before the retry could start; the task stays unfinished
+            inFlight.release();
+        }
+    }
+
+    private void abandon(final StagedTask task) {
+
+        if (waitingToRetry.remove(task)) {
+
+            task.retry(new InterruptedException("Abandoned while waiting to retry"));
+            inFlight.release();
+        }
+    }
+
+    /**
+     * @return suppliers of the number of tasks waiting for each stage, by stage name
+     */
+    public Map<String, IntSupplier> queueDepths() {
+
+        return Map.of(
+                "fetch", () -> fetchPool.getQueue().size(),
+                "process", () -> processPool.getQueue().size(),
+                "write", () -> writePool.getQueue().size());
+    }
+
+    public int inFlight() {
+
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Stops admitting tasks, waits up to {@code timeout} for the admitted ones and interrupts whatever is still running.
+     * A later {@link #close()} does not wait for the interrupted tasks.
+     */
+    public void drain(final Duration timeout) {
+
+        final long deadline = System.nanoTime() + timeout.toNanos();
+
+        retryTimer.shutdownNow();
+        waitingToRetry.forEach(this::abandon);
+
+        try {
+
+            for (final ThreadPoolExecutor pool : List.of(fetchPool, processPool, writePool)) {
+
+                pool.shutdown();
+
+                if (!pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+
+                    pool.shutdownNow();
+                }
+            }
+
+        } catch (InterruptedException e) {
+
+            fetchPool.shutdownNow();
+            processPool.shutdownNow();
+            writePool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        drained = true;
+    }
+
+    /**
+     * Stops admitting tasks and waits for every admitted one to pass all stages, unless the executor was
+     * {@linkplain #drain drained}.
+     */
+    @Override
+    public void close() {
+
+        if (drained) return;
+
+        try {
+
+            // a task holds its permit until it leaves the last stage or gives up, so all pools are idle once every permit is back
+            inFlight.acquire(maxInFlight);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+
+        fetchPool.shutdownNow();
+        processPool.shutdownNow();
+        writePool.shutdownNow();
+        retryTimer.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor createPool(final String name, final int threads, final int queueCapacity) {
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, name + "-" + threadNumber.incrementAndGet()),
+                StagedExecutor::waitForRoom);
+
+        pool.allowCoreThreadTimeOut(true);
+
+        return pool;
+    }
+
+    /**
+     * Backpressure between stages: the handing-over thread blocks until the next stage has room.
+     */
+    @SneakyThrows
+    private static void waitForRoom(final Runnable runnable, final ThreadPoolExecutor pool) {
+
+        if (pool.isShutdown()) throw new RejectedExecutionException("Stage is shut down");
+
+        pool.getQueue().put(runnable);
+
+        if (pool.isShutdown() && pool.remove(runnable)) throw new RejectedExecutionException("Stage is shut down");
+    }
+}
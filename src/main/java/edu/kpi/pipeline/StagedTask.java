@@ -0,0 +1,45 @@
+package edu.kpi.pipeline;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Task split into the stages run by {@link StagedExecutor}. Stages of one task run one after another,
+ * each possibly on a different thread.
+ */
+public interface StagedTask {
+
+    /**
+     * Blocking reads: document metadata, cache lookups and the source download.
+     */
+    void fetch() throws Exception;
+
+    /**
+     * CPU-bound parsing and segmentation.
+     */
+    void process() throws Exception;
+
+    /**
+     * Hands the results to the writers.
+     *
+     * @return completes once the results are stored; failing it is handled like a failure of the stage itself
+     */
+    CompletionStage<?> write() throws Exception;
+
+    /**
+     * Called when a stage fails, or with an {@link InterruptedException} when the task is abandoned while waiting
+     * to retry one. Whatever the earlier stages produced stays with the task, so only the failed stage runs again.
+     *
+     * @return how long to wait before running the failed stage again, or {@code null} to give up on the task
+     */
+    Duration retry(Exception e);
+
+    /**
+     * One of {@link #fetch()}, {@link #process()} and {@link #write()}.
+     */
+    @FunctionalInterface
+    interface Stage {
+
+        void run() throws Exception;
+    }
+}
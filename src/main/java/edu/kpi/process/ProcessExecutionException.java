@@ -0,0 +1,33 @@
+package edu.kpi.process;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * External process that exited with a non-zero status or was killed after its timeout.
+ */
+public class ProcessExecutionException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean timedOut;
+
+    public ProcessExecutionException(List<String> command, String reason) {
+
+        this(command, reason, false);
+    }
+
+    public ProcessExecutionException(List<String> command, String reason, boolean timedOut) {
+
+        super(String.join(" ", command) + " " + reason);
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * @return {@code true} when the process was killed by the timeout rather than failing on its own
+     */
+    public boolean timedOut() {
+
+        return timedOut;
+    }
+}
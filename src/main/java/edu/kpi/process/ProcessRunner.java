@@ -0,0 +1,121 @@
+package edu.kpi.process;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs external tools with their output read through a pipe.
+ * At most {@code maxProcesses} run at once, each is killed once it exceeds {@code timeout},
+ * and a non-zero exit status is reported as a {@link ProcessExecutionException}.
+ */
+public class ProcessRunner implements AutoCloseable {
+
+    private final Semaphore permits;
+    private final Duration timeout;
+    private final ExecutorService inputWriters = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+
+    public ProcessRunner(int maxProcesses, Duration timeout) {
+
+        this.permits = new Semaphore(maxProcesses);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Starts {@code command}, streams {@code input} into its standard input and hands its standard output to {@code reader}.
+     */
+    public <T> T run(final List<String> command, final InputStream input, final OutputReader<T> reader) throws IOException, InterruptedException {
+
+        permits.acquire();
+
+        try {
+
+            return execute(command, input, reader);
+
+        } finally {
+
+            permits.release();
+        }
+    }
+
+    private <T> T execute(final List<String> command, final InputStream input, final OutputReader<T> reader) throws IOException, InterruptedException {
+
+        final Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        final ScheduledFuture<?> kill = watchdog.schedule(() -> {
+
+            timedOut.set(true);
+            process.destroyForcibly();
+
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+
+            inputWriters.execute(() -> writeInput(process, input));
+
+            final T result;
+
+            try (final BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+
+                result = reader.read(output);
+
+                // whatever the reader left unread must not keep the process blocked on a full pipe
+                output.transferTo(Writer.nullWriter());
+            }
+
+            final int exitCode = process.waitFor();
+
+            if (timedOut.get()) throw new ProcessExecutionException(command, "timed out after " + timeout, true);
+            if (exitCode != 0) throw new ProcessExecutionException(command, "exited with status " + exitCode);
+
+            return result;
+
+        } finally {
+
+            kill.cancel(false);
+            process.destroyForcibly();
+        }
+    }
+
+    private void writeInput(final Process process, final InputStream input) {
+
+        try (final OutputStream processInput = process.getOutputStream()) {
+
+            input.transferTo(processInput);
+
+        } catch (IOException e) {
+
+            // the process may stop reading early, its exit status tells whether that was a failure
+        }
+    }
+
+    @Override
+    public void close() {
+
+        inputWriters.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface OutputReader<T> {
+
+        T read(BufferedReader output) throws IOException;
+    }
+}
@@ -0,0 +1,198 @@
+package edu.kpi.segmenter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the extracted text of a thesis into chapters keyed by their headers.
+ * <p>
+ * The document body is located by offsets only and copied once into a working buffer while
+ * redundant line breaks are dropped. Split headers are then joined and line breaks replaced
+ * in that same buffer, so the only other copies made are the chapter texts themselves.
+ * Instances are stateless and can be shared between threads.
+ */
+public class ChapterSegmenter {
+
+    private static final Pattern DOCUMENT_START_PATTERN = Pattern.compile("^\\s*[0-9.]*\\s*(РЕФЕРАТ|АНОТАЦІЯ)\\s*$", Pattern.MULTILINE);
+    private static final Pattern DOCUMENT_END_PATTERN = Pattern.compile("^[0-9.]*\\s*(СПИСОК\\s+(ЛІТЕРАТУРИ|.*ДЖЕРЕЛ)|ПЕРЕЛІК\\s+(ПОСИЛАНЬ|.*ДЖЕРЕЛ)|ВИКОРИСТАН.*ЛІТЕРАТУРА|ДЖЕРЕЛА)\\s*$", Pattern.MULTILINE);
+    private static final Pattern HEADER_PATTERN = Pattern.compile("^\\s*[0-9.]*\\s*([А-ЯІЄЇ]{5,}[А-ЯІЄЇ, \n]*)\\s*$", Pattern.MULTILINE);
+
+    private static final int SPLIT_HEADER_MIN_FIRST_LINE = 30;
+    private static final int SPLIT_HEADER_MIN_SECOND_LINE = 5;
+
+    public Map<String, String> segment(final String text) {
+
+        final int start = findStart(text);
+        final int end = findEnd(text, start);
+
+        final StringBuilder body = cleanUpBreaks(text, start, end);
+
+        joinSplitHeaders(body);
+
+        final Map<String, Integer> headers = getHeaders(body);
+
+        replaceLineBreaks(body);
+
+        return getChapters(body, headers);
+    }
+
+    /**
+     * @return offset of the first line announcing the abstract
+     */
+    int findStart(final String text) {
+
+        final Matcher matcher = DOCUMENT_START_PATTERN.matcher(text);
+
+        if (matcher.find()) {
+
+            return matcher.start();
+
+        } else {
+
+            throw new IllegalArgumentException("No document start found");
+        }
+    }
+
+    /**
+     * @return offset right after the last bibliography header, or {@code start} when there is none
+     */
+    int findEnd(final String text, final int start) {
+
+        final Matcher matcher = DOCUMENT_END_PATTERN.matcher(text).region(start, text.length());
+        int lastMatchIndex = start;
+
+        while (matcher.find()) {
+
+            lastMatchIndex = matcher.end();
+        }
+
+        return lastMatchIndex;
+    }
+
+    /**
+     * Copies {@code text[start, end)} collapsing every run of "whitespace + line break" pairs into a single line break,
+     * the same as {@code replaceAll("(\\s\n)+", "\n")}.
+     */
+    StringBuilder cleanUpBreaks(final String text, final int start, final int end) {
+
+        final StringBuilder result = new StringBuilder(end - start);
+        int index = start;
+
+        while (index < end) {
+
+            if (isBreakPair(text, index, end)) {
+
+                do {
+
+                    index += 2;
+
+                } while (isBreakPair(text, index, end));
+
+                result.append('\n');
+
+            } else {
+
+                result.append(text.charAt(index++));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Joins headers wrapped over two lines in place, the same as
+     * {@code replaceAll("([А-ЯІЄЇ, ]{30,})(\n)([А-ЯІЄЇ, ]{5,})", "$1 $3")}.
+     */
+    void joinSplitHeaders(final StringBuilder body) {
+
+        final int length = body.length();
+        int run = 0;
+
+        for (int index = 0; index < length; index++) {
+
+            final char current = body.charAt(index);
+
+            if (current == '\n' && run >= SPLIT_HEADER_MIN_FIRST_LINE) {
+
+                int next = index + 1;
+
+                while (next < length && isHeaderChar(body.charAt(next))) next++;
+
+                if (next - index - 1 >= SPLIT_HEADER_MIN_SECOND_LINE) {
+
+                    body.setCharAt(index, ' ');
+
+                    // the second line belongs to this match and cannot start another one
+                    index = next - 1;
+                    run = 0;
+                    continue;
+                }
+            }
+
+            run = isHeaderChar(current) ? run + 1 : 0;
+        }
+    }
+
+    /**
+     * @return header text to its offset in the body; a repeated header keeps its first position in the order
+     * but points to its last occurrence
+     */
+    Map<String, Integer> getHeaders(final CharSequence body) {
+
+        final Map<String, Integer> result = new LinkedHashMap<>();
+
+        final Matcher matcher = HEADER_PATTERN.matcher(body);
+
+        while (matcher.find()) {
+
+            result.put(matcher.group().replace("\n", "").trim(), matcher.start());
+        }
+
+        return result;
+    }
+
+    private void replaceLineBreaks(final StringBuilder body) {
+
+        for (int index = 0; index < body.length(); index++) {
+
+            if (body.charAt(index) == '\n') body.setCharAt(index, ' ');
+        }
+    }
+
+    private Map<String, String> getChapters(final StringBuilder body, final Map<String, Integer> headers) {
+
+        final List<String> headerList = new ArrayList<>(headers.keySet());
+        final List<Integer> headerIndexes = new ArrayList<>(headers.values());
+
+        final Map<String, String> result = new LinkedHashMap<>();
+
+        for (int chapterIndex = 0; chapterIndex < headerIndexes.size() - 1; chapterIndex++) {
+
+            result.put(headerList.get(chapterIndex), body.substring(headerIndexes.get(chapterIndex), headerIndexes.get(chapterIndex + 1)));
+        }
+
+        return result;
+    }
+
+    private boolean isBreakPair(final String text, final int index, final int end) {
+
+        return index + 1 < end && isWhitespace(text.charAt(index)) && text.charAt(index + 1) == '\n';
+    }
+
+    /**
+     * Matches {@code \s} of {@link Pattern} without {@link Pattern#UNICODE_CHARACTER_CLASS}.
+     */
+    private boolean isWhitespace(final char c) {
+
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private boolean isHeaderChar(final char c) {
+
+        return (c >= 'А' && c <= 'Я') || c == 'І' || c == 'Є' || c == 'Ї' || c == ',' || c == ' ';
+    }
+}
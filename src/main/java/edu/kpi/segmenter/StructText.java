@@ -0,0 +1,47 @@
+package edu.kpi.segmenter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Output of {@code pdfinfo -struct-text}: the full content together with its structure tokens,
+ * i.e. the lines that {@code pdfinfo -struct} alone would print.
+ */
+public record StructText(String content, Set<String> tokens) {
+
+    private static final String TEXT_QUOTE = "\"";
+
+    /**
+     * Collects both the content and the tokens from one pass over the output, skipping quoted text lines.
+     */
+    public static StructText read(BufferedReader output) throws IOException {
+
+        final StringBuilder content = new StringBuilder();
+        final Set<String> tokens = new HashSet<>();
+        boolean inText = false;
+
+        for (String line = output.readLine(); line != null; line = output.readLine()) {
+
+            content.append(line).append('\n');
+
+            final String trimmed = line.stripLeading();
+
+            if (inText) {
+
+                inText = !line.endsWith(TEXT_QUOTE);
+
+            } else if (trimmed.startsWith(TEXT_QUOTE)) {
+
+                inText = trimmed.length() == 1 || !trimmed.endsWith(TEXT_QUOTE);
+
+            } else {
+
+                tokens.add(line);
+            }
+        }
+
+        return new StructText(content.toString(), tokens);
+    }
+}
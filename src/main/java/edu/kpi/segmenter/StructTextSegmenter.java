@@ -0,0 +1,116 @@
+package edu.kpi.segmenter;
+
+import edu.kpi.matcher.LiteralStripper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Splits {@code pdfinfo -struct-text} output into Markdown chapters, one per top-level header
+ * after the table of contents. Instances are stateless and can be shared between threads.
+ */
+public class StructTextSegmenter {
+
+    private static final String TABLE_OF_CONTENTS_TAG = "TOC";
+    private static final String FIRST_LEVEL_HEADER = "H1 (block)";
+    private static final Pattern TEXT_QUOTES_PATTERN = Pattern.compile("(^ +\")|(\"$)");
+
+    private static final Map<String, String> STRUCT_TO_MD_MAPPING = Map.ofEntries(
+            Map.entry("H1 (block)", "\n# "),
+            Map.entry("  H2 (block)", "\n## "),
+            Map.entry("  H3 (block)", "\n### "),
+            Map.entry("  P (block)", "\n"),
+            Map.entry("  L (block):", ""),
+            Map.entry("     /ListNumbering /None", ""),
+            Map.entry("     /ListNumbering /Decimal", ""),
+            Map.entry("    LI (block)", ""),
+            Map.entry("      LBody (block)", "\n")
+    );
+
+    public boolean hasTableOfContents(Collection<String> structTokens) {
+
+        return structTokens.stream().anyMatch(token -> token.contains(TABLE_OF_CONTENTS_TAG));
+    }
+
+    public Map<String, String> segment(String structText, Collection<String> structTokens) {
+
+        final String strippedContent = stripContentToTableOfContents(structText);
+
+        final List<Integer> topLevelHeaderIndexes = getTopLevelHeaderIndexes(strippedContent);
+
+        return getChapters(strippedContent, topLevelHeaderIndexes, new LiteralStripper(structTokens));
+    }
+
+    String stripContentToTableOfContents(String content) {
+
+        final int tocIndex = content.indexOf(TABLE_OF_CONTENTS_TAG);
+
+        return content.substring(tocIndex);
+    }
+
+    List<Integer> getTopLevelHeaderIndexes(String content) {
+
+        List<Integer> result = new ArrayList<>();
+
+        for (int index = content.indexOf(FIRST_LEVEL_HEADER);
+             index >= 0;
+             index = content.indexOf(FIRST_LEVEL_HEADER, index + 1)) {
+            result.add(index);
+        }
+
+        return result;
+    }
+
+    Map<String, String> getChapters(String content, List<Integer> topLevelHeaderIndexes, LiteralStripper structTokens) {
+
+        final List<String> chapters = IntStream.range(0, topLevelHeaderIndexes.size() - 1)
+                .boxed()
+                .map(i -> content.substring(topLevelHeaderIndexes.get(i), topLevelHeaderIndexes.get(i + 1)))
+                .toList();
+
+        Map<String, String> result = new LinkedHashMap<>();
+
+        chapters.forEach(chapter -> result.put(getNameOfChapter(chapter), cleanupChapter(chapter, structTokens)));
+
+        return result;
+    }
+
+    String cleanupChapter(String chapter, LiteralStripper structTokens) {
+
+        StringBuilder result = new StringBuilder();
+
+        boolean skip = false;
+
+        for (String line : chapter.split("\n")) {
+
+            if (line.startsWith("  Table (block)")) {
+
+                skip = true;
+
+            } else if (line.lastIndexOf("  ") == 0) {
+
+                skip = false;
+            }
+
+            if (!skip) {
+
+                result.append(TEXT_QUOTES_PATTERN.matcher(STRUCT_TO_MD_MAPPING.getOrDefault(line, line)).replaceAll(""));
+            }
+        }
+
+        return structTokens.strip(result.toString());
+    }
+
+    private String getNameOfChapter(String chapterContent) {
+
+        final int index = chapterContent.indexOf('\n');
+        final int index1 = chapterContent.indexOf('\n', index + 1);
+
+        return chapterContent.substring(index, index1).replace("\"", "").replace("\n", "").trim();
+    }
+}
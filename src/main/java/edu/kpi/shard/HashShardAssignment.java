@@ -0,0 +1,44 @@
+package edu.kpi.shard;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import edu.kpi.store.DocumentRecord;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A fixed share of the document-ID space: documents whose ID hashes to {@code index} modulo {@code count}.
+ * Instances started with the same count and every index from 0 to {@code count - 1} cover the collection once,
+ * without talking to each other. A stopped instance's share waits until it is started again.
+ * <p>
+ * IDs are hashed rather than split into ranges, so shards stay even however the IDs are distributed.
+ */
+public class HashShardAssignment implements WorkAssignment {
+
+    private static final HashFunction HASH = Hashing.murmur3_32_fixed();
+
+    private final int index;
+    private final int count;
+
+    public HashShardAssignment(int index, int count) {
+
+        if (count < 1 || index < 0 || index >= count) {
+
+            throw new IllegalArgumentException("Shard " + index + " out of " + count + " does not exist");
+        }
+
+        this.index = index;
+        this.count = count;
+    }
+
+    @Override
+    public DocumentRecord assign(final DocumentRecord listed) {
+
+        return owns(listed.id()) ? listed : null;
+    }
+
+    public boolean owns(final String documentId) {
+
+        return Math.floorMod(HASH.hashString(documentId, StandardCharsets.UTF_8).asInt(), count) == index;
+    }
+}
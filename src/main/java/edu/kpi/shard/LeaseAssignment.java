@@ -0,0 +1,157 @@
+package edu.kpi.shard;
+
+import edu.kpi.store.CandidateQuery;
+import edu.kpi.store.DocumentRecord;
+import edu.kpi.store.DocumentStore;
+import edu.kpi.store.Lease;
+import lombok.SneakyThrows;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Documents claimed one by one through leases in the metadata store. Any number of instances list the same
+ * collection; each document goes to the first one to claim it, and a lease left behind by an instance that
+ * stopped expires after {@code leaseTime}, when the document can be claimed again. The listing thread only
+ * filters documents; each is claimed by its task right before the download, on a fetch thread, so the lease
+ * time counts from there and claims do not hold up the listing.
+ * <p>
+ * Instances that passed a document while it was leased to another list the collection again once that lease
+ * is over, so documents of an instance that stopped mid-way are still converted by the others. Results are
+ * written and the lease dropped in one atomic update through a {@link edu.kpi.store.LeasedDocumentStore}.
+ * <p>
+ * The lease time has to cover a document's download, conversion and write, retries included; a lease that runs out while
+ * its document is still being converted lets another instance convert it too.
+ */
+public class LeaseAssignment implements WorkAssignment {
+
+    private static final Duration RELISTING_MARGIN = Duration.ofSeconds(5);
+
+    private final DocumentStore store;
+    private final CandidateQuery query;
+    private final Predicate<DocumentRecord> wanted;
+    private final String owner;
+    private final Duration leaseTime;
+
+    private final Set<String> unclaimed = new HashSet<>();
+    private long heldUntilMillis;
+
+    /**
+     * @param query  fields of the claimed document passed on to the task
+     * @param wanted whether a listed document still needs converting; only those are claimed
+     */
+    public LeaseAssignment(DocumentStore store, CandidateQuery query, Predicate<DocumentRecord> wanted, String owner, Duration leaseTime) {
+
+        this.store = store;
+        this.query = query;
+        this.wanted = wanted;
+        this.owner = owner;
+        this.leaseTime = leaseTime;
+    }
+
+    /**
+     * Host name and process ID, different for every instance that can run at the same time.
+     */
+    @SneakyThrows
+    public static String localOwner() {
+
+        return InetAddress.getLocalHost().getHostName() + "-" + ProcessHandle.current().pid();
+    }
+
+    @Override
+    public synchronized DocumentRecord assign(final DocumentRecord listed) {
+
+        if (!wanted.test(listed)) return null;
+
+        unclaimed.add(listed.id());
+
+        return listed;
+    }
+
+    @Override
+    public void unassign(final DocumentRecord assigned) {
+
+        settle(assigned.id());
+    }
+
+    /**
+     * @return the document as read when it was claimed, so that work finished by another instance since it was
+     * listed is not done again; {@code null} as well when this instance already holds the lease from an earlier
+     * listing, whose task is still converting the document
+     */
+    @Override
+    public DocumentRecord claim(final DocumentRecord assigned) throws Exception {
+
+        try {
+
+            final Lease lease = new Lease(owner, System.currentTimeMillis() + leaseTime.toMillis());
+            final DocumentRecord claimed = store.claim(assigned.id(), query, lease);
+
+            if (claimed == null) return null;
+
+            final Lease current = Lease.of(claimed.fields());
+
+            if (lease.equals(current)) return claimed;
+
+            // a document listed again while this instance is still converting it is not waited for
+            if (current != null && !owner.equals(current.owner())) {
+
+                holdUntil(current.expiresAtMillis());
+            }
+
+            return null;
+
+        } finally {
+
+            settle(assigned.id());
+        }
+    }
+
+    /**
+     * Waits for the documents handed out during the listing to be claimed, then until every lease that kept one
+     * of them from this instance has expired; by then each of those documents is either converted or free to claim.
+     */
+    @Override
+    public synchronized boolean awaitRelisting() throws InterruptedException {
+
+        while (!unclaimed.isEmpty()) {
+
+            wait();
+        }
+
+        if (heldUntilMillis == 0) return false;
+
+        final long relistAtMillis = heldUntilMillis + RELISTING_MARGIN.toMillis();
+        heldUntilMillis = 0;
+
+        logRelisting(relistAtMillis - System.currentTimeMillis());
+
+        long waitMillis;
+
+        while ((waitMillis = relistAtMillis - System.currentTimeMillis()) > 0) {
+
+            wait(waitMillis);
+        }
+
+        return true;
+    }
+
+    private synchronized void holdUntil(final long expiresAtMillis) {
+
+        heldUntilMillis = Math.max(heldUntilMillis, expiresAtMillis);
+    }
+
+    private synchronized void settle(final String documentId) {
+
+        unclaimed.remove(documentId);
+        notifyAll();
+    }
+
+    private void logRelisting(final long waitMillis) {
+
+        System.out.println("Listing again in " + Math.max(0, waitMillis) / 1000 + " s for documents leased to other instances");
+    }
+}
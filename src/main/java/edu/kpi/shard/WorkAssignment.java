@@ -0,0 +1,54 @@
+package edu.kpi.shard;
+
+import edu.kpi.store.DocumentRecord;
+
+/**
+ * Decides which of the listed documents this converter instance converts, so that several instances can work
+ * through one collection without converting a document twice.
+ */
+public interface WorkAssignment {
+
+    /**
+     * Decides on the listing thread, so it only looks at the listed fields.
+     *
+     * @return the document to hand to a task, or {@code null} when it is left to another instance
+     */
+    DocumentRecord assign(DocumentRecord listed) throws Exception;
+
+    /**
+     * Called for an assigned document that no task was submitted for, so it is not waited for.
+     */
+    default void unassign(DocumentRecord assigned) {
+    }
+
+    /**
+     * Called by the task of an assigned document right before it fetches the source, so that anything that has to
+     * last while the document is converted starts then rather than when it was listed.
+     *
+     * @return the document to convert, possibly with fresher fields than the assigned one, or {@code null} when
+     * another instance has taken it in the meantime
+     */
+    default DocumentRecord claim(DocumentRecord assigned) throws Exception {
+
+        return assigned;
+    }
+
+    /**
+     * Called once the listing is exhausted. Waits, if need be, until the assigned documents are claimed and
+     * documents left to other instances can be looked at again.
+     *
+     * @return whether the collection should be listed again from the start
+     */
+    default boolean awaitRelisting() throws InterruptedException {
+
+        return false;
+    }
+
+    /**
+     * Every document, for a single instance.
+     */
+    static WorkAssignment all() {
+
+        return listed -> listed;
+    }
+}
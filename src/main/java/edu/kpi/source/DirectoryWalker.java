@@ -0,0 +1,137 @@
+package edu.kpi.source;
+
+import lombok.SneakyThrows;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily walks a directory tree for files with the given extension, yielding their paths relative to the root,
+ * with {@code /} separators. Only the directories on the current branch are listed at a time, so a corpus of
+ * millions of files starts converting at once and takes no memory to enumerate.
+ * <p>
+ * Entries of each directory are sorted so that paths come out in plain string order, the order document IDs are
+ * listed in, and a walk can resume after a given path: subtrees entirely before it are skipped without being opened.
+ * Symbolic links to directories are not followed.
+ */
+public class DirectoryWalker implements Iterable<String> {
+
+    private static final char SEPARATOR = '/';
+
+    private final Path root;
+    private final String extension;
+    private final String startAfter;
+
+    /**
+     * @param startAfter relative path to resume after, or {@code null} to start from the beginning
+     */
+    public DirectoryWalker(Path root, String extension, String startAfter) {
+
+        this.root = root;
+        this.extension = extension;
+        this.startAfter = startAfter;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+
+        return new WalkIterator();
+    }
+
+    private class WalkIterator implements Iterator<String> {
+
+        private final Deque<Iterator<Entry>> branch = new ArrayDeque<>();
+        private String next;
+
+        private WalkIterator() {
+
+            branch.push(list(root, "").iterator());
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            while (next == null && !branch.isEmpty()) {
+
+                if (!branch.peek().hasNext()) {
+
+                    branch.pop();
+                    continue;
+                }
+
+                final Entry entry = branch.peek().next();
+
+                if (entry.directory()) {
+
+                    if (!isBehindStart(entry)) {
+
+                        branch.push(list(entry.path(), entry.key()).iterator());
+                    }
+
+                } else if (entry.key().endsWith(extension) && (startAfter == null || entry.key().compareTo(startAfter) > 0)) {
+
+                    next = entry.key();
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+
+            if (!hasNext()) throw new NoSuchElementException();
+
+            final String current = next;
+            next = null;
+
+            return current;
+        }
+
+        /**
+         * Every path in a directory starts with its key, so the whole subtree comes before the starting path
+         * when the key does and is not a prefix of it.
+         */
+        private boolean isBehindStart(final Entry directory) {
+
+            return startAfter != null && directory.key().compareTo(startAfter) < 0 && !startAfter.startsWith(directory.key());
+        }
+
+        /**
+         * Directory keys end with the separator, which makes their place among the files of the same directory
+         * match the order of the paths under them.
+         */
+        @SneakyThrows
+        private List<Entry> list(final Path directory, final String prefix) {
+
+            final List<Entry> entries = new ArrayList<>();
+
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+
+                for (final Path path : stream) {
+
+                    final boolean isDirectory = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+                    final String key = prefix + path.getFileName() + (isDirectory ? String.valueOf(SEPARATOR) : "");
+
+                    entries.add(new Entry(path, key, isDirectory));
+                }
+            }
+
+            entries.sort(Comparator.comparing(Entry::key));
+
+            return entries;
+        }
+    }
+
+    private record Entry(Path path, String key, boolean directory) {
+    }
+}
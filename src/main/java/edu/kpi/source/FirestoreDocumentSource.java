@@ -0,0 +1,98 @@
+package edu.kpi.source;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import edu.kpi.metrics.ConversionMetrics;
+import lombok.SneakyThrows;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily pages through the results of a query in document-id order.
+ * Only two pages are held at a time: the one being consumed and the next one, which is
+ * requested as soon as the current page arrives so listing overlaps with conversion.
+ * Filters and field masks of the query are applied server-side, so each page already
+ * carries just the fields the tasks need.
+ */
+public class FirestoreDocumentSource implements Iterable<DocumentSnapshot> {
+
+    private final Query query;
+    private final int pageSize;
+    private final String startAfterId;
+    private final ConversionMetrics metrics;
+
+    /**
+     * @param startAfterId ID of the document to resume after, or {@code null} to start from the beginning
+     * @param metrics      records how long the consumer waited for each page, may be {@code null}
+     */
+    public FirestoreDocumentSource(Query query, int pageSize, String startAfterId, ConversionMetrics metrics) {
+
+        this.query = query;
+        this.pageSize = pageSize;
+        this.startAfterId = startAfterId;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Iterator<DocumentSnapshot> iterator() {
+
+        return new PageIterator();
+    }
+
+    private ApiFuture<QuerySnapshot> requestPage(final DocumentSnapshot after) {
+
+        final Query page = query.orderBy(FieldPath.documentId())
+                .limit(pageSize);
+
+        if (after != null) return page.startAfter(after).get();
+
+        return (startAfterId == null ? page : page.startAfter(startAfterId)).get();
+    }
+
+    private class PageIterator implements Iterator<DocumentSnapshot> {
+
+        private Iterator<QueryDocumentSnapshot> currentPage = Collections.emptyIterator();
+        private ApiFuture<QuerySnapshot> nextPage = requestPage(null);
+
+        @Override
+        public boolean hasNext() {
+
+            while (!currentPage.hasNext() && nextPage != null) {
+
+                advance();
+            }
+
+            return currentPage.hasNext();
+        }
+
+        @Override
+        public DocumentSnapshot next() {
+
+            if (!hasNext()) throw new NoSuchElementException();
+
+            return currentPage.next();
+        }
+
+        @SneakyThrows
+        private void advance() {
+
+            final long start = System.nanoTime();
+            final List<QueryDocumentSnapshot> documents = nextPage.get().getDocuments();
+
+            if (metrics != null) {
+
+                metrics.recordStage(ConversionMetrics.Stage.LISTING, System.nanoTime() - start);
+            }
+
+            nextPage = documents.size() < pageSize ? null : requestPage(documents.get(documents.size() - 1));
+            currentPage = documents.iterator();
+        }
+    }
+}
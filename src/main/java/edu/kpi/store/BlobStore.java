@@ -0,0 +1,66 @@
+package edu.kpi.store;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Flat store of source and output objects, addressed by keys relative to the bucket.
+ */
+public interface BlobStore {
+
+    /**
+     * Name of the bucket the store stands for; bucket URLs in the metadata documents contain it.
+     */
+    String bucket();
+
+    /**
+     * @return the key of the object a {@code bucketUrl} from a metadata document points to
+     */
+    default String keyOf(final String bucketUrl) {
+
+        return bucketUrl.substring(bucketUrl.lastIndexOf(bucket()) + bucket().length() + 1);
+    }
+
+    long size(String key) throws IOException;
+
+    /**
+     * @return the local file holding the object, which can then be read in place, or {@code null} for remote stores
+     */
+    default Path localFile(final String key) {
+
+        return null;
+    }
+
+    /**
+     * @throws java.nio.file.NoSuchFileException when there is no object with the key
+     */
+    ReadableByteChannel open(String key) throws IOException;
+
+    /**
+     * Opens a channel over {@code length} bytes of the object from {@code offset}, so that parts of one object
+     * can be read in parallel.
+     */
+    ReadableByteChannel openRange(String key, long offset, long length) throws IOException;
+
+    /**
+     * Creates or replaces the object; it is complete once the channel is closed.
+     */
+    WritableByteChannel create(String key, String contentType) throws IOException;
+
+    /**
+     * Removes the object, if there is one; a channel from {@link #create} cannot be abandoned, only closed.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * @return an URL of the object to store in metadata documents
+     */
+    String url(String key);
+
+    /**
+     * @return a hash that changes whenever the content of the object does, prefixed with its algorithm
+     */
+    String contentHash(String key) throws IOException;
+}
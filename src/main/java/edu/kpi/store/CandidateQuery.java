@@ -0,0 +1,48 @@
+package edu.kpi.store;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which documents to list and which of their fields to read. Stores apply both on their side where they can.
+ *
+ * @param fields     fields to read, none for the document IDs only
+ * @param arrayField array field that must contain any of {@code anyOf}, or {@code null} to list every document
+ */
+public record CandidateQuery(List<String> fields, String arrayField, List<String> anyOf) {
+
+    public static CandidateQuery select(final String... fields) {
+
+        return new CandidateQuery(List.of(fields), null, List.of());
+    }
+
+    public CandidateQuery whereArrayContainsAny(final String field, final List<String> values) {
+
+        return new CandidateQuery(fields, field, List.copyOf(values));
+    }
+
+    public boolean matches(final Map<String, Object> document) {
+
+        return arrayField == null
+                || document.get(arrayField) instanceof List<?> values && values.stream().anyMatch(anyOf::contains);
+    }
+
+    /**
+     * @return the selected fields of {@code document}
+     */
+    public Map<String, Object> project(final Map<String, Object> document) {
+
+        final Map<String, Object> projected = new HashMap<>();
+
+        for (final String field : fields) {
+
+            if (document.containsKey(field)) {
+
+                projected.put(field, document.get(field));
+            }
+        }
+
+        return projected;
+    }
+}
@@ -0,0 +1,168 @@
+package edu.kpi.store;
+
+import com.google.api.core.ApiFuture;
+import edu.kpi.source.DirectoryWalker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Documents found by walking a local copy of the source bucket instead of listing a collection: every PDF under
+ * the directory is a document, with its relative path as the ID and its file URL as the bucket URL. Fields kept
+ * for it in an {@link EmbeddedDocumentStore}, imported metadata or results of earlier runs, are merged in, and
+ * updates go there, creating the entry the first time a file is converted.
+ * <p>
+ * A file in a subdirectory belongs to the collection named after its top-level directory, so that engines
+ * restricted to collections find their documents in a corpus laid out as {@code <collection>/.../<file>.pdf}.
+ * Collections kept in the field store take precedence; files at the top level belong to none.
+ */
+public class DirectoryDocumentStore implements DocumentStore {
+
+    private static final String BUCKET_URL_ATTR = "bucketUrl";
+    private static final String COLLECTIONS_ATTR = "collections";
+    private static final String PDF_EXTENSION = ".pdf";
+
+    private final Path directory;
+    private final BlobStore sourceStore;
+    private final EmbeddedDocumentStore fieldStore;
+
+    /**
+     * @param sourceStore local store of the directory, which gives the bucket URLs
+     */
+    public DirectoryDocumentStore(Path directory, BlobStore sourceStore, EmbeddedDocumentStore fieldStore) {
+
+        this.directory = directory;
+        this.sourceStore = sourceStore;
+        this.fieldStore = fieldStore;
+    }
+
+    /**
+     * Filters are applied as files are walked, so a query matching few of them still walks the whole tree.
+     */
+    @Override
+    public Iterable<DocumentRecord> list(final CandidateQuery query, final String startAfterId) {
+
+        final DirectoryWalker walker = new DirectoryWalker(directory, PDF_EXTENSION, startAfterId);
+
+        return () -> new MatchingIterator(walker.iterator(), query);
+    }
+
+    @Override
+    public DocumentRecord get(final String id) {
+
+        if (!Files.isRegularFile(directory.resolve(id))) {
+
+            return fieldStore.get(id);
+        }
+
+        return new DocumentRecord(id, fieldsOf(id));
+    }
+
+    @Override
+    public ApiFuture<Void> update(final String id, final Map<String, Object> fields) {
+
+        return fieldStore.merge(id, fields);
+    }
+
+    /**
+     * The first claim of a file creates its entry in the field store.
+     */
+    @Override
+    public DocumentRecord claim(final String id, final CandidateQuery query, final Lease lease) throws Exception {
+
+        if (!Files.isRegularFile(directory.resolve(id))) {
+
+            return fieldStore.claim(id, query, lease);
+        }
+
+        if (fieldStore.get(id) == null) {
+
+            fieldStore.merge(id, Map.of()).get();
+        }
+
+        final DocumentRecord claimed = fieldStore.claim(id, query, lease);
+
+        // the same fields as listed, collections derived from the path included, with the lease as claimed
+        final Map<String, Object> fields = new HashMap<>(query.project(fieldsOf(id)));
+
+        fields.put(Lease.OWNER_ATTR, claimed.get(Lease.OWNER_ATTR));
+        fields.put(Lease.EXPIRES_AT_ATTR, claimed.get(Lease.EXPIRES_AT_ATTR));
+
+        return new DocumentRecord(id, fields);
+    }
+
+    @Override
+    public ApiFuture<Void> complete(final String id, final String owner, final Map<String, Object> fields) {
+
+        return fieldStore.complete(id, owner, fields);
+    }
+
+    @Override
+    public void close() {
+
+        fieldStore.close();
+    }
+
+    private Map<String, Object> fieldsOf(final String id) {
+
+        final DocumentRecord stored = fieldStore.get(id);
+        final Map<String, Object> fields = stored == null ? new HashMap<>() : new HashMap<>(stored.fields());
+
+        fields.put(BUCKET_URL_ATTR, sourceStore.url(id));
+
+        final int separator = id.indexOf('/');
+
+        if (separator > 0) {
+
+            fields.putIfAbsent(COLLECTIONS_ATTR, List.of(id.substring(0, separator)));
+        }
+
+        return fields;
+    }
+
+    private class MatchingIterator implements Iterator<DocumentRecord> {
+
+        private final Iterator<String> paths;
+        private final CandidateQuery query;
+        private DocumentRecord next;
+
+        private MatchingIterator(Iterator<String> paths, CandidateQuery query) {
+
+            this.paths = paths;
+            this.query = query;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            while (next == null && paths.hasNext()) {
+
+                final String id = paths.next();
+                final Map<String, Object> fields = fieldsOf(id);
+
+                if (query.matches(fields)) {
+
+                    next = new DocumentRecord(id, query.project(fields));
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public DocumentRecord next() {
+
+            if (!hasNext()) throw new NoSuchElementException();
+
+            final DocumentRecord current = next;
+            next = null;
+
+            return current;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package edu.kpi.store;
+
+import java.util.Map;
+
+/**
+ * Metadata document as read from a {@link DocumentStore}, carrying the fields the query selected.
+ */
+public record DocumentRecord(String id, Map<String, Object> fields) {
+
+    public Object get(final String field) {
+
+        return fields.get(field);
+    }
+
+    public String getString(final String field) {
+
+        return fields.get(field) instanceof String value ? value : null;
+    }
+
+    public boolean contains(final String field) {
+
+        return fields.containsKey(field);
+    }
+}
@@ -0,0 +1,48 @@
+package edu.kpi.store;
+
+import com.google.api.core.ApiFuture;
+
+import java.util.Map;
+
+/**
+ * Where the metadata documents of a collection are listed, read and updated with conversion results.
+ */
+public interface DocumentStore extends AutoCloseable {
+
+    /**
+     * Lists the matching documents lazily, in document-ID order.
+     *
+     * @param startAfterId ID of the document to resume after, or {@code null} to start from the beginning
+     */
+    Iterable<DocumentRecord> list(CandidateQuery query, String startAfterId);
+
+    /**
+     * @return the whole document, or {@code null} when there is none with the ID
+     */
+    DocumentRecord get(String id) throws Exception;
+
+    /**
+     * Sets the given top-level fields of an existing document, keeping the others. Callers do not block on the write.
+     */
+    ApiFuture<Void> update(String id, Map<String, Object> fields);
+
+    /**
+     * Atomically takes {@code lease} on the document when nobody holds an unexpired one.
+     *
+     * @return the document as it stands after the attempt, with the fields {@code query} selects and its lease,
+     * which equals {@code lease} when it was granted; {@code null} when there is no document with the ID
+     */
+    DocumentRecord claim(String id, CandidateQuery query, Lease lease) throws Exception;
+
+    /**
+     * Like {@link #update}, and drops the lease of {@code owner} in the same atomic write. Fails, leaving the
+     * document as it is, when another owner has taken the lease over.
+     */
+    ApiFuture<Void> complete(String id, String owner, Map<String, Object> fields);
+
+    /**
+     * Waits until every update is stored.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,466 @@
+package edu.kpi.store;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.common.io.CountingInputStream;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.reflect.TypeToken;
+import lombok.SneakyThrows;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Metadata documents persisted to a single local file, for runs without Firestore.
+ * <p>
+ * Every change is appended to the file as an entry before the update completes. Only an index of where the entries
+ * of each document lie is kept in memory, about a hundred bytes per document plus its ID, and documents are read
+ * from the file when asked for, so a collection of hundreds of thousands of documents with their results takes
+ * tens of megabytes of heap; the index, and so the number of documents, is the limit. Opening the store scans
+ * the entry headers without reading the fields and cuts off an entry torn by a crash. The file is rewritten with
+ * one entry per document only once updates have made it more than twice that, when the store is closed.
+ * <p>
+ * Entries hold the fields as UTF-8 JSON, like the result cache does, so reading the file can only ever yield
+ * strings, numbers, booleans, lists and maps.
+ */
+public class EmbeddedDocumentStore implements DocumentStore {
+
+    private static final int LIST_PAGE_SIZE = 500;
+    private static final int COMPACT_ENTRIES_PER_DOCUMENT = 2;
+    private static final byte SET = 'S';
+    private static final byte UPDATE = 'U';
+    // an update that also drops the lease
+    private static final byte COMPLETE = 'C';
+    private static final String ID_ATTR = "id";
+    private static final String FIELDS_ATTR = "fields";
+    private static final Gson GSON = new GsonBuilder()
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+            .serializeNulls()
+            .create();
+    private static final Type FIELDS_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    private final Path file;
+    private final NavigableMap<String, List<Entry>> index = new TreeMap<>();
+    private FileChannel log;
+    private long end;
+    private long entryCount;
+
+    @SneakyThrows
+    public EmbeddedDocumentStore(Path file) {
+
+        this.file = file;
+        this.log = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        scan();
+    }
+
+    /**
+     * Adds or replaces the documents of a JSON Lines file, one {@code {"id": ..., "fields": {...}}} object per line,
+     * such as an export of the Firestore collection or a generated load-test corpus.
+     */
+    @SneakyThrows
+    public synchronized void importJsonLines(final Path jsonLines) {
+
+        int imported = 0;
+
+        try (final BufferedReader reader = Files.newBufferedReader(jsonLines, StandardCharsets.UTF_8)) {
+
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+
+                if (line.isBlank()) continue;
+
+                final Map<?, ?> entry = GSON.fromJson(line, Map.class);
+                final Map<?, ?> fields = (Map<?, ?>) entry.get(FIELDS_ATTR);
+                final Map<String, Object> document = new LinkedHashMap<>();
+
+                if (fields != null) {
+
+                    fields.forEach((field, value) -> document.put((String) field, value));
+                }
+
+                append(SET, (String) entry.get(ID_ATTR), document);
+                imported++;
+            }
+        }
+
+        logImported(imported, jsonLines);
+    }
+
+    @Override
+    public Iterable<DocumentRecord> list(final CandidateQuery query, final String startAfterId) {
+
+        return () -> new PageIterator(query, startAfterId);
+    }
+
+    @Override
+    public synchronized DocumentRecord get(final String id) {
+
+        final Map<String, Object> document = read(id);
+
+        return document == null ? null : new DocumentRecord(id, document);
+    }
+
+    /**
+     * Like Firestore, fails for a document that does not exist.
+     */
+    @Override
+    public synchronized ApiFuture<Void> update(final String id, final Map<String, Object> fields) {
+
+        if (!index.containsKey(id)) {
+
+            return ApiFutures.immediateFailedFuture(new NoSuchElementException("No document to update: " + id));
+        }
+
+        return merge(id, fields);
+    }
+
+    /**
+     * Sets the given fields, creating the document when there is none.
+     */
+    public synchronized ApiFuture<Void> merge(final String id, final Map<String, Object> fields) {
+
+        try {
+
+            append(UPDATE, id, fields);
+
+            return ApiFutures.immediateFuture(null);
+
+        } catch (IOException e) {
+
+            return ApiFutures.immediateFailedFuture(e);
+        }
+    }
+
+    @Override
+    public synchronized DocumentRecord claim(final String id, final CandidateQuery query, final Lease lease) throws IOException {
+
+        final Map<String, Object> document = read(id);
+
+        if (document == null) return null;
+
+        if (Lease.isClaimable(Lease.of(document), System.currentTimeMillis())) {
+
+            append(UPDATE, id, lease.fields());
+            document.putAll(lease.fields());
+        }
+
+        return new DocumentRecord(id, withLease(query.project(document), document));
+    }
+
+    @Override
+    public synchronized ApiFuture<Void> complete(final String id, final String owner, final Map<String, Object> fields) {
+
+        try {
+
+            final Map<String, Object> document = read(id);
+
+            if (document == null) {
+
+                return ApiFutures.immediateFailedFuture(new NoSuchElementException("No document to complete: " + id));
+            }
+
+            if (!Lease.isCompletableBy(Lease.of(document), owner, System.currentTimeMillis())) {
+
+                return ApiFutures.immediateFailedFuture(new IllegalStateException("Lease on " + id + " was taken over by another owner"));
+            }
+
+            append(COMPLETE, id, fields);
+
+            return ApiFutures.immediateFuture(null);
+
+        } catch (IOException e) {
+
+            return ApiFutures.immediateFailedFuture(e);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public synchronized void close() {
+
+        if (entryCount > (long) COMPACT_ENTRIES_PER_DOCUMENT * index.size()) {
+
+            compact();
+
+        } else {
+
+            log.close();
+        }
+    }
+
+    private synchronized List<DocumentRecord> page(final CandidateQuery query, final String afterId) {
+
+        final List<DocumentRecord> page = new ArrayList<>();
+        final Map<String, List<Entry>> remaining = afterId == null ? index : index.tailMap(afterId, false);
+
+        for (final String id : remaining.keySet()) {
+
+            final Map<String, Object> document = read(id);
+
+            if (!query.matches(document)) continue;
+
+            page.add(new DocumentRecord(id, query.project(document)));
+
+            if (page.size() == LIST_PAGE_SIZE) break;
+        }
+
+        return page;
+    }
+
+    /**
+     * @return the document put together from its entries, or {@code null} when there is none
+     */
+    @SneakyThrows
+    private Map<String, Object> read(final String id) {
+
+        final List<Entry> entries = index.get(id);
+
+        if (entries == null) return null;
+
+        final Map<String, Object> document = new LinkedHashMap<>();
+
+        for (final Entry entry : entries) {
+
+            final ByteBuffer fields = ByteBuffer.allocate(entry.length());
+
+            while (fields.hasRemaining()) {
+
+                if (log.read(fields, entry.offset() + fields.position()) < 0) throw new EOFException("Entry of " + id + " is cut short");
+            }
+
+            apply(entry.operation(), document, deserialize(fields.array()));
+        }
+
+        return document;
+    }
+
+    private static void apply(final byte operation, final Map<String, Object> document, final Map<String, Object> fields) {
+
+        if (operation == SET) {
+
+            document.clear();
+        }
+
+        document.putAll(fields);
+
+        if (operation == COMPLETE) {
+
+            document.remove(Lease.OWNER_ATTR);
+            document.remove(Lease.EXPIRES_AT_ATTR);
+        }
+    }
+
+    private static Map<String, Object> withLease(final Map<String, Object> projected, final Map<String, Object> document) {
+
+        final Map<String, Object> fields = new HashMap<>(projected);
+
+        fields.put(Lease.OWNER_ATTR, document.get(Lease.OWNER_ATTR));
+        fields.put(Lease.EXPIRES_AT_ATTR, document.get(Lease.EXPIRES_AT_ATTR));
+
+        return fields;
+    }
+
+    /**
+     * Builds the index from the entry headers, skipping over the fields, and cuts the file after the last whole entry.
+     */
+    private void scan() throws IOException {
+
+        final CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+
+        try (final DataInputStream input = new DataInputStream(counter)) {
+
+            while (true) {
+
+                final byte operation = input.readByte();
+                final String id = input.readUTF();
+                final int length = input.readInt();
+                final long offset = counter.getCount();
+
+                input.skipNBytes(length);
+                index(operation, id, offset, length);
+                end = counter.getCount();
+            }
+
+        } catch (EOFException e) {
+
+            // the end of the file, possibly in the middle of an entry torn by a crash
+        }
+
+        log.truncate(end);
+    }
+
+    private void index(final byte operation, final String id, final long offset, final int length) {
+
+        final Entry entry = new Entry(operation, offset, length);
+
+        if (operation == SET) {
+
+            final List<Entry> replaced = index.put(id, new ArrayList<>(List.of(entry)));
+            entryCount += 1 - (replaced == null ? 0 : replaced.size());
+
+        } else {
+
+            index.computeIfAbsent(id, key -> new ArrayList<>(1)).add(entry);
+            entryCount++;
+        }
+    }
+
+    /**
+     * Writes the entry at the end of the file, then adds it to the index.
+     */
+    private void append(final byte operation, final String id, final Map<String, Object> fields) throws IOException {
+
+        final byte[] serialized = serialize(fields);
+        final ByteBuffer entry = encode(operation, id, serialized);
+        final long offset = end + entry.capacity() - serialized.length;
+
+        end = write(log, end, entry);
+        index(operation, id, offset, serialized.length);
+    }
+
+    /**
+     * Rewrites the file with one entry per document, through a temporary file that replaces it at once.
+     */
+    private void compact() throws IOException {
+
+        final Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        long position = 0;
+
+        try (final FileChannel output = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            for (final String id : index.keySet()) {
+
+                position = write(output, position, encode(SET, id, serialize(read(id))));
+            }
+
+            output.force(true);
+        }
+
+        logCompacted(entryCount, index.size());
+
+        log.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer encode(final byte operation, final String id, final byte[] serialized) throws IOException {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(serialized.length + id.length() + 16);
+
+        try (final DataOutputStream output = new DataOutputStream(bytes)) {
+
+            output.writeByte(operation);
+            output.writeUTF(id);
+            output.writeInt(serialized.length);
+            output.write(serialized);
+        }
+
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    /**
+     * @return the position after the written entry
+     */
+    private static long write(final FileChannel channel, final long position, final ByteBuffer entry) throws IOException {
+
+        long written = position;
+
+        while (entry.hasRemaining()) {
+
+            written += channel.write(entry, written);
+        }
+
+        return written;
+    }
+
+    private static byte[] serialize(final Map<String, Object> fields) {
+
+        return GSON.toJson(fields, FIELDS_TYPE).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> deserialize(final byte[] fields) {
+
+        return GSON.fromJson(new String(fields, StandardCharsets.UTF_8), FIELDS_TYPE);
+    }
+
+    private void logImported(final int count, final Path jsonLines) {
+
+        System.out.println("Imported " + count + " documents from " + jsonLines);
+    }
+
+    private void logCompacted(final long entries, final int documents) {
+
+        System.out.println("Compacted " + entries + " entries of " + file + " into " + documents);
+    }
+
+    /**
+     * Where the fields of one entry lie in the file.
+     */
+    private record Entry(byte operation, long offset, int length) {
+    }
+
+    private class PageIterator implements Iterator<DocumentRecord> {
+
+        private final CandidateQuery query;
+        private String lastId;
+        private Iterator<DocumentRecord> currentPage = Collections.emptyIterator();
+        private boolean exhausted;
+
+        private PageIterator(CandidateQuery query, String startAfterId) {
+
+            this.query = query;
+            this.lastId = startAfterId;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (!currentPage.hasNext() && !exhausted) {
+
+                final List<DocumentRecord> page = page(query, lastId);
+
+                exhausted = page.size() < LIST_PAGE_SIZE;
+                currentPage = page.iterator();
+            }
+
+            return currentPage.hasNext();
+        }
+
+        @Override
+        public DocumentRecord next() {
+
+            if (!hasNext()) throw new NoSuchElementException();
+
+            final DocumentRecord document = currentPage.next();
+            lastId = document.id();
+
+            return document;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package edu.kpi.store;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.Transaction;
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.kpi.metrics.ConversionMetrics;
+import edu.kpi.source.FirestoreDocumentSource;
+import edu.kpi.writer.ResultWriter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Documents of a Firestore collection. Listing pages through the query with filters and field masks applied
+ * server-side, and updates go through the shared {@link ResultWriter}. Leases are taken and dropped in transactions,
+ * which read only the selected fields and the lease.
+ */
+public class FirestoreDocumentStore implements DocumentStore {
+
+    private final CollectionReference collection;
+    private final int pageSize;
+    private final ResultWriter resultWriter;
+    private final ConversionMetrics metrics;
+
+    /**
+     * @param metrics records how long listing waited for each page, may be {@code null}
+     */
+    public FirestoreDocumentStore(CollectionReference collection, int pageSize, ResultWriter resultWriter, ConversionMetrics metrics) {
+
+        this.collection = collection;
+        this.pageSize = pageSize;
+        this.resultWriter = resultWriter;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Iterable<DocumentRecord> list(final CandidateQuery candidateQuery, final String startAfterId) {
+
+        final Query filtered = candidateQuery.arrayField() == null
+                ? collection
+                : collection.whereArrayContainsAny(candidateQuery.arrayField(), candidateQuery.anyOf());
+
+        final Query query = candidateQuery.fields().isEmpty()
+                ? filtered.select(FieldPath.documentId())
+                : filtered.select(candidateQuery.fields().toArray(String[]::new));
+
+        final FirestoreDocumentSource source = new FirestoreDocumentSource(query, pageSize, startAfterId, metrics);
+
+        return () -> {
+
+            final Iterator<DocumentSnapshot> snapshots = source.iterator();
+
+            return new Iterator<>() {
+
+                @Override
+                public boolean hasNext() {
+
+                    return snapshots.hasNext();
+                }
+
+                @Override
+                public DocumentRecord next() {
+
+                    return toRecord(snapshots.next());
+                }
+            };
+        };
+    }
+
+    @Override
+    public DocumentRecord get(final String id) throws Exception {
+
+        final DocumentSnapshot snapshot = collection.document(id).get().get();
+
+        return snapshot.exists() ? toRecord(snapshot) : null;
+    }
+
+    @Override
+    public ApiFuture<Void> update(final String id, final Map<String, Object> fields) {
+
+        return ApiFutures.transform(resultWriter.update(collection.document(id), fields), result -> null, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public DocumentRecord claim(final String id, final CandidateQuery query, final Lease lease) throws Exception {
+
+        final DocumentReference reference = collection.document(id);
+
+        return collection.getFirestore().runTransaction(transaction -> {
+
+            final DocumentSnapshot snapshot = getWithLease(transaction, reference, query.fields()).get().get(0);
+
+            if (!snapshot.exists()) return null;
+
+            final Map<String, Object> fields = new HashMap<>(snapshot.getData());
+
+            if (Lease.isClaimable(Lease.of(fields), System.currentTimeMillis())) {
+
+                transaction.update(reference, lease.fields());
+                fields.putAll(lease.fields());
+            }
+
+            return new DocumentRecord(id, fields);
+
+        }).get();
+    }
+
+    /**
+     * Bypasses the {@link ResultWriter}: the lease has to be checked and dropped in the same transaction as the write.
+     */
+    @Override
+    public ApiFuture<Void> complete(final String id, final String owner, final Map<String, Object> fields) {
+
+        final DocumentReference reference = collection.document(id);
+
+        final Map<String, Object> update = new HashMap<>(fields);
+        update.put(Lease.OWNER_ATTR, FieldValue.delete());
+        update.put(Lease.EXPIRES_AT_ATTR, FieldValue.delete());
+
+        return collection.getFirestore().runAsyncTransaction(transaction -> ApiFutures.transform(
+                getWithLease(transaction, reference, List.of()),
+                snapshots -> {
+
+                    final DocumentSnapshot snapshot = snapshots.get(0);
+
+                    if (!snapshot.exists()) throw new NoSuchElementException("No document to complete: " + id);
+
+                    if (!Lease.isCompletableBy(Lease.of(snapshot.getData()), owner, System.currentTimeMillis())) {
+
+                        throw new IllegalStateException("Lease on " + id + " was taken over by another owner");
+                    }
+
+                    transaction.update(reference, update);
+
+                    return null;
+                },
+                MoreExecutors.directExecutor()));
+    }
+
+    @Override
+    public void close() {
+
+        resultWriter.close();
+    }
+
+    private static ApiFuture<List<DocumentSnapshot>> getWithLease(final Transaction transaction, final DocumentReference reference,
+                                                                  final List<String> fields) {
+
+        final List<String> masked = new ArrayList<>(fields);
+        masked.add(Lease.OWNER_ATTR);
+        masked.add(Lease.EXPIRES_AT_ATTR);
+
+        return transaction.getAll(new DocumentReference[]{reference}, FieldMask.of(masked.toArray(String[]::new)));
+    }
+
+    private static DocumentRecord toRecord(final DocumentSnapshot snapshot) {
+
+        final Map<String, Object> data = snapshot.getData();
+
+        return new DocumentRecord(snapshot.getId(), data == null ? Map.of() : data);
+    }
+}
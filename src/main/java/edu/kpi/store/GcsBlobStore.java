@@ -0,0 +1,109 @@
+package edu.kpi.store;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.contrib.nio.CloudStorageFileSystem;
+import com.google.cloud.storage.contrib.nio.CloudStorageOptions;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Objects of a GCS bucket, read and written through the NIO file system.
+ */
+public class GcsBlobStore implements BlobStore {
+
+    private final CloudStorageFileSystem fileSystem;
+    private final Storage storage;
+
+    public GcsBlobStore(CloudStorageFileSystem fileSystem, Storage storage) {
+
+        this.fileSystem = fileSystem;
+        this.storage = storage;
+    }
+
+    @Override
+    public String bucket() {
+
+        return fileSystem.bucket();
+    }
+
+    @Override
+    public long size(final String key) throws IOException {
+
+        return Files.size(fileSystem.getPath(key));
+    }
+
+    @Override
+    public ReadableByteChannel open(final String key) throws IOException {
+
+        return FileChannel.open(fileSystem.getPath(key), StandardOpenOption.READ);
+    }
+
+    /**
+     * Read through the storage client, which requests just the range instead of reading to the end of the object.
+     */
+    @Override
+    public ReadableByteChannel openRange(final String key, final long offset, final long length) throws IOException {
+
+        final ReadChannel channel = storage.reader(BlobId.of(bucket(), key));
+
+        channel.seek(offset);
+
+        return channel.limit(offset + length);
+    }
+
+    @Override
+    public WritableByteChannel create(final String key, final String contentType) throws IOException {
+
+        return Files.newByteChannel(fileSystem.getPath(key),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING,
+                CloudStorageOptions.withMimeType(contentType));
+    }
+
+    @Override
+    public void delete(final String key) throws IOException {
+
+        Files.deleteIfExists(fileSystem.getPath(key));
+    }
+
+    @Override
+    public String url(final String key) {
+
+        return fileSystem.getPath(key).toUri().toString();
+    }
+
+    /**
+     * MD5 of the object as hex, read from the metadata GCS keeps, so nothing is downloaded.
+     * Composite objects have no MD5, for them the CRC32C is combined with the size.
+     */
+    @Override
+    public String contentHash(final String key) throws FileNotFoundException {
+
+        final Blob blob = storage.get(BlobId.of(bucket(), key),
+                Storage.BlobGetOption.fields(Storage.BlobField.MD5HASH, Storage.BlobField.CRC32C, Storage.BlobField.SIZE));
+
+        if (blob == null) throw new FileNotFoundException("Source object does not exist: " + url(key));
+
+        if (blob.getMd5() != null) {
+
+            return "md5-" + toHex(blob.getMd5());
+        }
+
+        return "crc32c-" + toHex(blob.getCrc32c()) + "-" + blob.getSize();
+    }
+
+    private String toHex(final String base64) {
+
+        return HexFormat.of().formatHex(Base64.getDecoder().decode(base64));
+    }
+}
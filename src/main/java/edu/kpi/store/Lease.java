@@ -0,0 +1,52 @@
+package edu.kpi.store;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Claim of one converter instance on a document until {@code expiresAtMillis}, kept in two fields of the document
+ * itself so that it is taken and dropped in the same atomic writes as the rest of it. Instances compare expiry
+ * times by their own clocks, which is safe as long as the clock skew between them is small next to the lease time.
+ */
+public record Lease(String owner, long expiresAtMillis) {
+
+    public static final String OWNER_ATTR = "leaseOwner";
+    public static final String EXPIRES_AT_ATTR = "leaseExpiresAt";
+
+    /**
+     * @return the lease held on a document, or {@code null} when it has none
+     */
+    public static Lease of(final Map<String, Object> fields) {
+
+        return fields.get(OWNER_ATTR) instanceof String owner && fields.get(EXPIRES_AT_ATTR) instanceof Number expiresAt
+                ? new Lease(owner, expiresAt.longValue())
+                : null;
+    }
+
+    /**
+     * @return whether a document with the {@code current} lease, possibly none, can be claimed
+     */
+    static boolean isClaimable(final Lease current, final long nowMillis) {
+
+        return current == null || current.expiresAtMillis() <= nowMillis;
+    }
+
+    /**
+     * @return whether a document with the {@code current} lease can be completed by {@code owner}: its own lease,
+     * expired or not, or one nobody else has taken over
+     */
+    static boolean isCompletableBy(final Lease current, final String owner, final long nowMillis) {
+
+        return current == null || current.owner().equals(owner) || current.expiresAtMillis() <= nowMillis;
+    }
+
+    Map<String, Object> fields() {
+
+        final Map<String, Object> fields = new HashMap<>();
+
+        fields.put(OWNER_ATTR, owner);
+        fields.put(EXPIRES_AT_ATTR, expiresAtMillis);
+
+        return fields;
+    }
+}
@@ -0,0 +1,62 @@
+package edu.kpi.store;
+
+import com.google.api.core.ApiFuture;
+
+import java.util.Map;
+
+/**
+ * View of a store for one lease owner, in which updating a document completes it: the results are written and
+ * the owner's lease dropped at once, so tasks record their results the same way whether leases are used or not.
+ */
+public class LeasedDocumentStore implements DocumentStore {
+
+    private final DocumentStore store;
+    private final String owner;
+
+    public LeasedDocumentStore(DocumentStore store, String owner) {
+
+        this.store = store;
+        this.owner = owner;
+    }
+
+    public String owner() {
+
+        return owner;
+    }
+
+    @Override
+    public Iterable<DocumentRecord> list(final CandidateQuery query, final String startAfterId) {
+
+        return store.list(query, startAfterId);
+    }
+
+    @Override
+    public DocumentRecord get(final String id) throws Exception {
+
+        return store.get(id);
+    }
+
+    @Override
+    public ApiFuture<Void> update(final String id, final Map<String, Object> fields) {
+
+        return store.complete(id, owner, fields);
+    }
+
+    @Override
+    public DocumentRecord claim(final String id, final CandidateQuery query, final Lease lease) throws Exception {
+
+        return store.claim(id, query, lease);
+    }
+
+    @Override
+    public ApiFuture<Void> complete(final String id, final String owner, final Map<String, Object> fields) {
+
+        return store.complete(id, owner, fields);
+    }
+
+    @Override
+    public void close() {
+
+        store.close();
+    }
+}
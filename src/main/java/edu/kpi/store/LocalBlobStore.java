@@ -0,0 +1,137 @@
+package edu.kpi.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Objects kept as files under a local directory, one per key, so that a bucket copied to disk can be converted
+ * at local-disk speed without GCP.
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String FILE_URL_PREFIX = "file:";
+
+    private final Path root;
+    private final String bucket;
+
+    /**
+     * @param bucket name of the bucket the directory holds a copy of
+     */
+    public LocalBlobStore(Path root, String bucket) {
+
+        this.root = root;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public String bucket() {
+
+        return bucket;
+    }
+
+    /**
+     * Also takes the {@code file:} URLs of the store itself, decoded and relative to the root.
+     */
+    @Override
+    public String keyOf(final String bucketUrl) {
+
+        if (bucketUrl.startsWith(FILE_URL_PREFIX)) {
+
+            return root.toAbsolutePath().relativize(Path.of(URI.create(bucketUrl))).toString().replace(File.separatorChar, '/');
+        }
+
+        return BlobStore.super.keyOf(bucketUrl);
+    }
+
+    @Override
+    public long size(final String key) throws IOException {
+
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public Path localFile(final String key) {
+
+        return resolve(key);
+    }
+
+    @Override
+    public ReadableByteChannel open(final String key) throws IOException {
+
+        return FileChannel.open(resolve(key), StandardOpenOption.READ);
+    }
+
+    @Override
+    public ReadableByteChannel openRange(final String key, final long offset, final long length) throws IOException {
+
+        return FileChannel.open(resolve(key), StandardOpenOption.READ).position(offset);
+    }
+
+    @Override
+    public WritableByteChannel create(final String key, final String contentType) throws IOException {
+
+        final Path file = resolve(key);
+        Files.createDirectories(file.getParent());
+
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void delete(final String key) throws IOException {
+
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public String url(final String key) {
+
+        return resolve(key).toAbsolutePath().toUri().toString();
+    }
+
+    /**
+     * Local files have no stored checksum, so the content is hashed; reading it is cheap next to converting it.
+     */
+    @Override
+    public String contentHash(final String key) throws IOException {
+
+        final MessageDigest digest = newDigest();
+
+        try (final InputStream stream = new DigestInputStream(Files.newInputStream(resolve(key)), digest)) {
+
+            stream.transferTo(OutputStream.nullOutputStream());
+        }
+
+        return "sha256-" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path resolve(final String key) {
+
+        return root.resolve(key);
+    }
+
+    private static MessageDigest newDigest() {
+
+        try {
+
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+
+        } catch (NoSuchAlgorithmException e) {
+
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+}
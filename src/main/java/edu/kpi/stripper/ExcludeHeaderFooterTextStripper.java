@@ -1,5 +1,6 @@
 package edu.kpi.stripper;
 
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
 
@@ -8,48 +9,107 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Text stripper that drops everything printed in the header and footer bands of a page.
+ * <p>
+ * The bands are computed once per page and kept in primitive fields, so an instance holds no shared state
+ * and the check per word neither allocates nor boxes. Instances are not thread-safe; use one per thread.
+ * <p>
+ * With {@code learnRepeatedBands} the stripper also drops running headers and footers that sit just outside
+ * the fixed bands: a word printed at the same position with the same text (ignoring digits) on
+ * {@value #REPEATED_BAND_MIN_PAGES} or more pages is treated as part of a running band from then on.
+ */
 public class ExcludeHeaderFooterTextStripper extends PDFTextStripper {
 
     private static final float HEADER_BOUND = 0.067f;
     private static final float FOOTER_BOUND = 0.067f;
+    private static final float LEARNING_BOUND = 0.12f;
+    private static final int REPEATED_BAND_MIN_PAGES = 3;
 
-    private static final Map<Float, Float> HEADER_PIXEL_BOUNDS = new HashMap<>();
-    private static final Map<Float, Float> FOOTER_PIXEL_BOUNDS = new HashMap<>();
+    private final boolean learnRepeatedBands;
+    private final Map<String, BandWord> bandWords = new HashMap<>();
+
+    private float headerPixelBound;
+    private float footerPixelBound;
+    private float headerLearningBound;
+    private float footerLearningBound;
 
     public ExcludeHeaderFooterTextStripper() throws IOException {
+
+        this(false);
+    }
+
+    public ExcludeHeaderFooterTextStripper(boolean learnRepeatedBands) throws IOException {
+
+        this.learnRepeatedBands = learnRepeatedBands;
+    }
+
+    @Override
+    protected void startPage(final PDPage page) throws IOException {
+
+        super.startPage(page);
+
+        final float pageHeight = page.getCropBox().getHeight();
+
+        headerPixelBound = pageHeight * HEADER_BOUND;
+        footerPixelBound = pageHeight * (1 - FOOTER_BOUND);
+        headerLearningBound = pageHeight * LEARNING_BOUND;
+        footerLearningBound = pageHeight * (1 - LEARNING_BOUND);
     }
 
     @Override
     protected void writeString(final String text, final List<TextPosition> textPositions) throws IOException {
 
         final TextPosition position = textPositions.get(0);
+        final float y = position.getY();
 
-        final double headerBound = getHeaderPixelBound(position);
-        final double footerBound = getFooterPixelBound(position);
+        if (y <= headerPixelBound || y >= footerPixelBound) return;
 
-        if (position.getY() > headerBound && position.getY() < footerBound) {
+        if (learnRepeatedBands && (y < headerLearningBound || y > footerLearningBound) && isRepeated(text, position)) return;
 
-            super.writeString(text, textPositions);
-        }
+        super.writeString(text, textPositions);
     }
 
-    private float getHeaderPixelBound(final TextPosition position) {
+    private boolean isRepeated(final String text, final TextPosition position) {
 
-        return HEADER_PIXEL_BOUNDS.computeIfAbsent(position.getPageHeight(), this::computeHeaderPixedBound);
-    }
+        final String word = stripDigits(text);
+
+        if (word.isEmpty()) return false;
 
-    private float computeHeaderPixedBound(final float pageHeight) {
+        final String key = word + '@' + Math.round(position.getX()) + ':' + Math.round(position.getY());
 
-        return pageHeight * HEADER_BOUND;
+        return bandWords.computeIfAbsent(key, ignored -> new BandWord())
+                .seenOn(getCurrentPageNo()) >= REPEATED_BAND_MIN_PAGES;
     }
 
-    private float getFooterPixelBound(final TextPosition position) {
+    private String stripDigits(final String text) {
+
+        final StringBuilder result = new StringBuilder(text.length());
+
+        for (int index = 0; index < text.length(); index++) {
+
+            final char c = text.charAt(index);
+
+            if (!Character.isDigit(c) && !Character.isWhitespace(c)) result.append(c);
+        }
 
-        return FOOTER_PIXEL_BOUNDS.computeIfAbsent(position.getPageHeight(), this::computeFooterPixedBound);
+        return result.toString();
     }
 
-    private float computeFooterPixedBound(final float pageHeight) {
+    private static final class BandWord {
+
+        private int pages;
+        private int lastPage;
+
+        private int seenOn(final int page) {
 
-        return pageHeight * (1 - FOOTER_BOUND);
+            if (page != lastPage) {
+
+                pages++;
+                lastPage = page;
+            }
+
+            return pages;
+        }
     }
 }
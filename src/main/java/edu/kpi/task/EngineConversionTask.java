@@ -0,0 +1,451 @@
+package edu.kpi.task;
+
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.kpi.cache.ResultCache;
+import edu.kpi.engine.ConversionEngine;
+import edu.kpi.engine.ConversionEngines;
+import edu.kpi.engine.ConversionInput;
+import edu.kpi.engine.EngineContext;
+import edu.kpi.io.PdfDownloader;
+import edu.kpi.journal.CheckpointJournal;
+import edu.kpi.metrics.ConversionMetrics;
+import edu.kpi.pipeline.RetryPolicy;
+import edu.kpi.pipeline.StagedTask;
+import edu.kpi.shard.WorkAssignment;
+import edu.kpi.io.SourcePdf;
+import edu.kpi.store.DocumentRecord;
+import edu.kpi.store.DocumentStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Runs every pending engine over one download of the document and writes all their fields in a single update.
+ * Results already cached for the same source content are reused, and the download is skipped when all of them are.
+ * <p>
+ * The stages hand their state to each other through fields, so a task runs on one stage at a time.
+ * The state survives a failed stage: a retry reuses the downloaded source, the parses already made and the results
+ * of the engines that already ran.
+ */
+public class EngineConversionTask implements StagedTask {
+
+    private static final String BUCKET_URL_ATTR = "bucketUrl";
+
+    private final ConversionEngines engines;
+    private final EngineContext context;
+    private final PdfDownloader downloader;
+    private final ResultCache resultCache;
+    private final CheckpointJournal journal;
+    private final WorkAssignment workAssignment;
+    private final DocumentStore documentStore;
+    private final RetryPolicy retryPolicy;
+
+    private DocumentRecord document;
+    private boolean claimed;
+    private boolean left;
+    private int usedAttempts = 1;
+    private Map<String, Object> fields;
+    private Map<ConversionEngine, Map<String, Object>> converted;
+    private List<ConversionEngine> toConvert;
+    private String contentHash;
+    private SourcePdf source;
+    private ConversionInput input;
+    private boolean processing;
+
+    /**
+     * @param document       candidate listed with {@link ConversionEngines#candidateQuery}
+     * @param workAssignment the assignment that handed out the document, which claims it before the download
+     */
+    public EngineConversionTask(ConversionEngines engines, EngineContext context, PdfDownloader downloader, ResultCache resultCache,
+                                CheckpointJournal journal, WorkAssignment workAssignment, DocumentRecord document, DocumentStore documentStore,
+                                RetryPolicy retryPolicy) {
+
+        this.engines = engines;
+        this.context = context;
+        this.downloader = downloader;
+        this.resultCache = resultCache;
+        this.journal = journal;
+        this.workAssignment = workAssignment;
+        this.document = document;
+        this.documentStore = documentStore;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Claims the document, works out the pending engines, takes what the cache already has and downloads the source
+     * for the rest. A retry after a failed download skips straight to the download.
+     */
+    @Override
+    public void fetch() throws Exception {
+
+        if (!claimed) {
+
+            claim();
+        }
+
+        if (left) return;
+
+        if (toConvert == null) {
+
+            plan();
+        }
+
+        if (source == null && !toConvert.isEmpty()) {
+
+            final long start = System.nanoTime();
+
+            source = downloader.download(document.getString(BUCKET_URL_ATTR));
+
+            record(ConversionMetrics.Stage.DOWNLOAD, start);
+            metrics().recordDownload(source.size());
+        }
+    }
+
+    /**
+     * A document another instance, or another task of this one, has taken since it was listed is left to it,
+     * neither finished nor failed here.
+     */
+    private void claim() throws Exception {
+
+        final DocumentRecord current = workAssignment.claim(document);
+
+        if (current == null) {
+
+            left = true;
+            logLeft();
+            journal.release(document.id());
+            return;
+        }
+
+        document = current;
+        claimed = true;
+    }
+
+    private void plan() throws Exception {
+
+        if (usedAttempts == 1) {
+
+            logRun();
+        }
+
+        fields = new HashMap<>();
+        converted = new LinkedHashMap<>();
+
+        final List<ConversionEngine> pending = withoutLegacyResults(engines.pending(document));
+        final List<ConversionEngine> misses = new ArrayList<>();
+
+        if (!pending.isEmpty()) {
+
+            logStarting(pending);
+
+            final String bucketUrl = document.getString(BUCKET_URL_ATTR);
+
+            long start = System.nanoTime();
+            contentHash = pending.stream().anyMatch(ConversionEngine::cacheable) ? resultCache.contentHash(bucketUrl) : null;
+            start = record(ConversionMetrics.Stage.METADATA, start);
+
+            for (final ConversionEngine engine : pending) {
+
+                final Map<String, Object> cached = engine.cacheable() ? resultCache.get(contentHash, engine) : null;
+
+                if (engine.cacheable()) {
+
+                    metrics().recordCache(cached != null);
+                }
+
+                if (cached != null) {
+
+                    logCacheHit(engine);
+                    fields.putAll(cached);
+
+                } else {
+
+                    misses.add(engine);
+                }
+            }
+
+            record(ConversionMetrics.Stage.CACHE, start);
+        }
+
+        toConvert = misses;
+    }
+
+    /**
+     * Engines whose results the document already has from before their marker existed only get the marker written,
+     * so such a document is read in full once and then never again. Only engines with legacy fields cost the read.
+     */
+    private List<ConversionEngine> withoutLegacyResults(final List<ConversionEngine> pending) throws Exception {
+
+        if (pending.stream().allMatch(engine -> engine.legacyFields().isEmpty())) return pending;
+
+        final DocumentRecord stored = documentStore.get(document.id());
+
+        if (stored == null) return pending;
+
+        final List<ConversionEngine> remaining = new ArrayList<>();
+
+        for (final ConversionEngine engine : pending) {
+
+            if (engine.legacyFields().stream().anyMatch(stored::contains)) {
+
+                logLegacyResult(engine);
+                fields.putAll(engine.legacyMarker(stored));
+
+            } else {
+
+                remaining.add(engine);
+            }
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Runs the engines that have no result yet, so a retry after a timed out engine does not repeat the others.
+     */
+    @Override
+    public void process() throws Exception {
+
+        if (left || source == null) return;
+
+        processing = true;
+
+        if (input == null) {
+
+            input = new ConversionInput(document, document.getString(BUCKET_URL_ATTR), source, context);
+        }
+
+        for (final ConversionEngine engine : toConvert) {
+
+            if (converted.containsKey(engine)) continue;
+
+            final long start = System.nanoTime();
+            final long parseNanos = input.parseNanos();
+            final Map<String, Object> result = engine.convert(input);
+
+            // parsing done on behalf of this engine is already recorded as extraction
+            metrics().recordStage(ConversionMetrics.Stage.SEGMENTATION, System.nanoTime() - start - (input.parseNanos() - parseNanos));
+            converted.put(engine, result);
+            fields.putAll(result);
+        }
+
+        processing = false;
+        releaseSource();
+    }
+
+    /**
+     * A retry after a failed update writes the same fields again.
+     */
+    @Override
+    public CompletionStage<Void> write() {
+
+        if (left) return CompletableFuture.completedFuture(null);
+
+        if (fields.isEmpty()) {
+
+            logSkipped();
+            metrics().recordOutcome(ConversionMetrics.Outcome.SKIPPED);
+            journal.markCompleted(document.id());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        converted.forEach((engine, result) -> {
+
+            if (engine.cacheable()) {
+
+                resultCache.put(contentHash, engine, result);
+            }
+        });
+
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        ApiFutures.addCallback(
+                documentStore.update(document.id(), fields),
+                new WriteCallback(System.nanoTime(), written),
+                MoreExecutors.directExecutor());
+
+        return written;
+    }
+
+    /**
+     * Transient failures wait for a backoff and run the failed stage again. Permanent ones, such as a document
+     * the parsers reject, fail the task at once instead of repeating the same work, and are journaled as failed.
+     * A transient failure that has used up its attempts is not journaled, so the next run tries the document again.
+     */
+    @Override
+    public Duration retry(Exception e) {
+
+        if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+
+            // abandoned by a shutdown drain, left unrecorded so the next run picks it up
+            releaseSource();
+            logAbandoned();
+            metrics().recordOutcome(ConversionMetrics.Outcome.ABANDONED);
+            return null;
+        }
+
+        System.err.print(e);
+
+        // the parsers work on bytes already in memory, so only their timeouts are worth another attempt
+        final boolean retryable = processing
+                ? retryPolicy.shouldRetryLocal(e, usedAttempts)
+                : retryPolicy.shouldRetry(e, usedAttempts);
+
+        if (retryable) {
+
+            logRetry();
+            metrics().recordRetry(e);
+            return retryPolicy.backoff(usedAttempts++);
+        }
+
+        releaseSource();
+        logFailed();
+        metrics().recordOutcome(ConversionMetrics.Outcome.FAILED);
+        metrics().recordFailure(e);
+
+        if (processing ? RetryPolicy.isTransientLocal(e) : RetryPolicy.isTransient(e)) {
+
+            logDeferred();
+
+        } else {
+
+            journal.markFailed(document.id());
+        }
+
+        return null;
+    }
+
+    private void releaseSource() {
+
+        if (source != null) {
+
+            source.close();
+            source = null;
+        }
+
+        input = null;
+    }
+
+    private ConversionMetrics metrics() {
+
+        return context.metrics();
+    }
+
+    /**
+     * @return the time the next stage starts at
+     */
+    private long record(final ConversionMetrics.Stage stage, final long start) {
+
+        final long now = System.nanoTime();
+        metrics().recordStage(stage, now - start);
+
+        return now;
+    }
+
+    private void logRun() {
+
+        logMessage("Run task for " + document.id());
+    }
+
+    private void logFinished() {
+
+        logMessage("Finished task for " + document.id());
+    }
+
+    private void logRetry() {
+
+        logMessage("Retrying task for " + document.id());
+    }
+
+    private void logFailed() {
+
+        logMessage("Gave up task for " + document.id());
+    }
+
+    private void logDeferred() {
+
+        logMessage("Left " + document.id() + " to the next run");
+    }
+
+    private void logAbandoned() {
+
+        logMessage("Abandoned task for " + document.id());
+    }
+
+    private void logSkipped() {
+
+        logMessage("Skipped task for " + document.id());
+    }
+
+    private void logLeft() {
+
+        logMessage("Left task for " + document.id() + " to its lease holder");
+    }
+
+    private void logLegacyResult(final ConversionEngine engine) {
+
+        logMessage("Marked earlier " + engine.name() + " result of " + document.id());
+    }
+
+    private void logCacheHit(final ConversionEngine engine) {
+
+        logMessage("Reused cached " + engine.name() + " result for " + document.id());
+    }
+
+    private void logWriteFailed() {
+
+        logMessage("Failed to write results for " + document.id());
+    }
+
+    private void logStarting(final List<ConversionEngine> pending) {
+
+        logMessage("Starting task for " + document.id() + " with "
+                + pending.stream().map(ConversionEngine::name).toList());
+    }
+
+    private void logMessage(final String message) {
+
+        System.out.println(message);
+    }
+
+    private class WriteCallback implements ApiFutureCallback<Void> {
+
+        private final long start;
+        private final CompletableFuture<Void> written;
+
+        private WriteCallback(long start, CompletableFuture<Void> written) {
+
+            this.start = start;
+            this.written = written;
+        }
+
+        @Override
+        public void onSuccess(final Void result) {
+
+            logFinished();
+            record(ConversionMetrics.Stage.WRITE, start);
+            metrics().recordOutcome(ConversionMetrics.Outcome.COMPLETED);
+            journal.markCompleted(document.id());
+            written.complete(null);
+        }
+
+        /**
+         * Left to {@link #retry}, which the executor calls when {@code written} fails.
+         */
+        @Override
+        public void onFailure(final Throwable e) {
+
+            logWriteFailed();
+            record(ConversionMetrics.Stage.WRITE, start);
+            written.completeExceptionally(e);
+        }
+    }
+}
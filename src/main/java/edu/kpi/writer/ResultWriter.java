@@ -0,0 +1,156 @@
+package edu.kpi.writer;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.kpi.pipeline.AdaptiveLimiter;
+import edu.kpi.pipeline.RetryPolicy;
+import lombok.SneakyThrows;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared sink for the document updates produced by the tasks.
+ * Updates go through a single {@link BulkWriter}, which batches and rate-limits them,
+ * while the number of bytes waiting to be written is kept under {@code maxOutstandingBytes}.
+ * A failed write is retried by the {@link BulkWriter} itself, with its own backoff, as long as {@code retryPolicy}
+ * considers the failure transient.
+ * Callers get the future of their own write back and never block on write latency.
+ */
+public class ResultWriter implements AutoCloseable {
+
+    private static final int BYTES_PER_CHAR = 2;
+    private static final int BYTES_PER_NUMBER = 8;
+
+    private final BulkWriter bulkWriter;
+    private final int maxOutstandingBytes;
+    private final Semaphore outstandingBytes;
+    private final AdaptiveLimiter limiter;
+
+    public ResultWriter(Firestore database, int maxOutstandingBytes, AdaptiveLimiter limiter, RetryPolicy retryPolicy) {
+
+        this.bulkWriter = database.bulkWriter();
+        this.bulkWriter.addWriteErrorListener(error -> retryPolicy.shouldRetry(error, error.getFailedAttempts()));
+        this.maxOutstandingBytes = maxOutstandingBytes;
+        this.outstandingBytes = new Semaphore(maxOutstandingBytes);
+        this.limiter = limiter;
+    }
+
+    /**
+     * Queues an update of the given fields. Blocks only while the outstanding-bytes budget or the write limiter,
+     * which backs off on failed writes and rising commit latency, is exhausted.
+     */
+    @SneakyThrows
+    public ApiFuture<WriteResult> update(final DocumentReference documentReference, final Map<String, Object> fields) {
+
+        final int size = Math.min(estimateSize(fields), maxOutstandingBytes);
+
+        if (!outstandingBytes.tryAcquire(size)) {
+
+            // writes sitting in a partially filled batch hold budget too, push them out before waiting
+            flush();
+            outstandingBytes.acquire(size);
+        }
+
+        AdaptiveLimiter.Permit permit = limiter.tryAcquire();
+
+        if (permit == null) {
+
+            flush();
+            permit = limiter.acquire();
+        }
+
+        final ApiFuture<WriteResult> result;
+
+        try {
+
+            synchronized (bulkWriter) {
+
+                result = bulkWriter.update(documentReference, fields);
+            }
+
+        } catch (RuntimeException e) {
+
+            permit.ignore();
+            outstandingBytes.release(size);
+            throw e;
+        }
+
+        result.addListener(() -> outstandingBytes.release(size), MoreExecutors.directExecutor());
+        ApiFutures.addCallback(result, new LimiterCallback(permit), MoreExecutors.directExecutor());
+
+        return result;
+    }
+
+    private void flush() {
+
+        synchronized (bulkWriter) {
+
+            bulkWriter.flush();
+        }
+    }
+
+    /**
+     * Sends everything still queued and waits until all writes complete.
+     */
+    @Override
+    @SneakyThrows
+    public void close() {
+
+        synchronized (bulkWriter) {
+
+            bulkWriter.close();
+        }
+    }
+
+    private int estimateSize(final Object value) {
+
+        if (value instanceof String string) {
+
+            return string.length() * BYTES_PER_CHAR;
+
+        } else if (value instanceof Map<?, ?> map) {
+
+            return map.entrySet().stream()
+                    .mapToInt(entry -> estimateSize(entry.getKey()) + estimateSize(entry.getValue()))
+                    .sum();
+
+        } else if (value instanceof Collection<?> collection) {
+
+            return collection.stream()
+                    .mapToInt(this::estimateSize)
+                    .sum();
+        }
+
+        return BYTES_PER_NUMBER;
+    }
+
+    private static class LimiterCallback implements ApiFutureCallback<WriteResult> {
+
+        private final AdaptiveLimiter.Permit permit;
+
+        private LimiterCallback(AdaptiveLimiter.Permit permit) {
+
+            this.permit = permit;
+        }
+
+        @Override
+        public void onSuccess(final WriteResult result) {
+
+            permit.success();
+        }
+
+        @Override
+        public void onFailure(final Throwable e) {
+
+            permit.dropped();
+        }
+    }
+}
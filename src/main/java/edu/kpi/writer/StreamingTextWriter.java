@@ -0,0 +1,181 @@
+package edu.kpi.writer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Encodes text to UTF-8 straight into a channel through fixed buffers, counting characters and bytes and hashing
+ * the bytes as they pass. Only the first {@code previewChars} characters are kept, so memory stays the same however
+ * long the text is. Wrapped in a Tika {@code BodyContentHandler}, it takes a parser's output as it is produced.
+ * <p>
+ * Unpaired surrogates, which broken PDF text layers do produce, are written as {@code ?}.
+ */
+public class StreamingTextWriter extends Writer {
+
+    private static final int BUFFER_CHARS = 16 * 1024;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final WritableByteChannel channel;
+    private final int previewChars;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer pending = CharBuffer.allocate(BUFFER_CHARS);
+    private final ByteBuffer encoded = ByteBuffer.allocate(BUFFER_BYTES);
+    private final MessageDigest digest;
+    private final StringBuilder preview = new StringBuilder();
+
+    private long charCount;
+    private long byteCount;
+    private boolean closed;
+
+    public StreamingTextWriter(WritableByteChannel channel, int previewChars) {
+
+        this.channel = channel;
+        this.previewChars = previewChars;
+        this.digest = newDigest();
+    }
+
+    @Override
+    public void write(final char[] chars, int offset, int length) throws IOException {
+
+        if (closed) throw new IOException("Writer is closed");
+
+        if (preview.length() < previewChars) {
+
+            preview.append(chars, offset, Math.min(length, previewChars - preview.length()));
+        }
+
+        charCount += length;
+
+        while (length > 0) {
+
+            final int taken = Math.min(length, pending.remaining());
+
+            pending.put(chars, offset, taken);
+            offset += taken;
+            length -= taken;
+
+            encodePending(false);
+        }
+    }
+
+    /**
+     * Pushes the bytes encoded so far to the channel. A surrogate pair split by the last write waits for its second half.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        if (closed) return;
+
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (closed) return;
+
+        try {
+
+            encodePending(true);
+
+            while (encoder.flush(encoded).isOverflow()) {
+
+                drain();
+            }
+
+            drain();
+
+        } finally {
+
+            closed = true;
+            channel.close();
+        }
+    }
+
+    public long charCount() {
+
+        return charCount;
+    }
+
+    public long byteCount() {
+
+        return byteCount;
+    }
+
+    /**
+     * @return hex SHA-256 of the bytes written, available once the writer is closed
+     */
+    public String sha256() {
+
+        if (!closed) throw new IllegalStateException("Hash is known only once the writer is closed");
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the beginning of the text, never ending in half a surrogate pair
+     */
+    public String preview() {
+
+        final int length = preview.length();
+
+        return length > 0 && Character.isHighSurrogate(preview.charAt(length - 1))
+                ? preview.substring(0, length - 1)
+                : preview.toString();
+    }
+
+    private void encodePending(final boolean endOfInput) throws IOException {
+
+        pending.flip();
+
+        CoderResult result;
+
+        while ((result = encoder.encode(pending, encoded, endOfInput)).isOverflow()) {
+
+            drain();
+        }
+
+        if (result.isError()) result.throwException();
+
+        pending.compact();
+    }
+
+    private void drain() throws IOException {
+
+        encoded.flip();
+        digest.update(encoded.duplicate());
+        byteCount += encoded.remaining();
+
+        while (encoded.hasRemaining()) {
+
+            channel.write(encoded);
+        }
+
+        encoded.clear();
+    }
+
+    private static MessageDigest newDigest() {
+
+        try {
+
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+
+        } catch (NoSuchAlgorithmException e) {
+
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package edu.kpi.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link LiteralStripper} against the per-token {@code replaceAll} loop of {@code cleanupChapter} it replaced, and
+ * against a brute-force reference where tokens overlap, which the loop resolved by set iteration order.
+ */
+class LiteralStripperTest {
+
+    private static final int RANDOM_CASES = 20_000;
+    private static final String TOKEN_LETTERS = "Pa Spn()[].*+?|\\$";
+    private static final String FILLER_LETTERS = "xyz \n\"";
+    private static final String OVERLAP_LETTERS = "abc";
+
+    /**
+     * Tokens shaped like pdfinfo structure lines never overlap and removing one never forms another, so the loop
+     * gives the same text whatever its order. It quotes the tokens here: unquoted, those with metacharacters were
+     * read as regular expressions, which is the bug the stripper fixed.
+     */
+    @Test
+    void stripsStructureTokensLikeTheReplaceAllLoop() {
+
+        for (int seed = 0; seed < RANDOM_CASES; seed++) {
+
+            final Random random = new Random(seed);
+            final Set<String> tokens = new HashSet<>();
+            final int tokenCount = 1 + random.nextInt(8);
+
+            while (tokens.size() < tokenCount) {
+
+                tokens.add("<" + randomString(random, TOKEN_LETTERS, random.nextInt(6)) + ">");
+            }
+
+            final List<String> tokenList = List.copyOf(tokens);
+            final StringBuilder text = new StringBuilder();
+            final int parts = random.nextInt(20);
+
+            for (int part = 0; part < parts; part++) {
+
+                text.append(random.nextBoolean()
+                        ? tokenList.get(random.nextInt(tokenList.size()))
+                        : randomString(random, FILLER_LETTERS, 1 + random.nextInt(5)));
+            }
+
+            String expected = text.toString();
+
+            for (final String token : tokens) {
+
+                expected = expected.replaceAll(Pattern.quote(token), "");
+            }
+
+            assertEquals(expected, new LiteralStripper(tokens).strip(text.toString()), "seed " + seed);
+        }
+    }
+
+    @Test
+    void stripsOverlappingTokensLeftmostLongestFirst() {
+
+        for (int seed = 0; seed < RANDOM_CASES; seed++) {
+
+            final Random random = new Random(seed);
+            final Set<String> tokens = new HashSet<>();
+            final int tokenCount = 1 + random.nextInt(6);
+
+            while (tokens.size() < tokenCount) {
+
+                tokens.add(randomString(random, OVERLAP_LETTERS, 1 + random.nextInt(4)));
+            }
+
+            final String text = randomString(random, OVERLAP_LETTERS, random.nextInt(40));
+
+            assertEquals(leftmostLongest(tokens, text), new LiteralStripper(tokens).strip(text), "seed " + seed);
+        }
+    }
+
+    @Test
+    void matchesMetacharactersLiterally() {
+
+        final LiteralStripper stripper = new LiteralStripper(List.of("  P (block)", "[.*]"));
+
+        assertEquals("text\nmore", stripper.strip("  P (block)text\n[.*]more"));
+        assertEquals("  P block", stripper.strip("  P block"));
+    }
+
+    private String leftmostLongest(final Set<String> tokens, final String text) {
+
+        final StringBuilder result = new StringBuilder();
+
+        for (int index = 0; index < text.length(); ) {
+
+            int longest = 0;
+
+            for (final String token : tokens) {
+
+                if (text.startsWith(token, index)) longest = Math.max(longest, token.length());
+            }
+
+            if (longest > 0) {
+
+                index += longest;
+
+            } else {
+
+                result.append(text.charAt(index++));
+            }
+        }
+
+        return result.toString();
+    }
+
+    private String randomString(final Random random, final String letters, final int length) {
+
+        final StringBuilder result = new StringBuilder(length);
+
+        for (int index = 0; index < length; index++) {
+
+            result.append(letters.charAt(random.nextInt(letters.length())));
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,221 @@
+package edu.kpi.segmenter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link ChapterSegmenter#segment} against the regex chain it replaced, on random theses built from start and end
+ * markers, headers, split headers, prose and the break sequences the chain collapses. Both must give the same
+ * chapters in the same order, or fail the same way.
+ */
+class ChapterSegmenterTest {
+
+    private static final Pattern DOCUMENT_START_PATTERN = Pattern.compile("^\\s*[0-9.]*\\s*(РЕФЕРАТ|АНОТАЦІЯ)\\s*$", Pattern.MULTILINE);
+    private static final Pattern DOCUMENT_END_PATTERN = Pattern.compile("^[0-9.]*\\s*(СПИСОК\\s+(ЛІТЕРАТУРИ|.*ДЖЕРЕЛ)|ПЕРЕЛІК\\s+(ПОСИЛАНЬ|.*ДЖЕРЕЛ)|ВИКОРИСТАН.*ЛІТЕРАТУРА|ДЖЕРЕЛА)\\s*$", Pattern.MULTILINE);
+    private static final Pattern HEADER_PATTERN = Pattern.compile("^\\s*[0-9.]*\\s*([А-ЯІЄЇ]{5,}[А-ЯІЄЇ, \n]*)\\s*$", Pattern.MULTILINE);
+    private static final String SPLIT_HEADER_REGEX = "([А-ЯІЄЇ, ]{30,})(\n)([А-ЯІЄЇ, ]{5,})";
+    private static final String SPLIT_HEADER_REPLACEMENT = "$1 $3";
+
+    private static final int RANDOM_THESES = 20_000;
+    private static final String[] STARTS = {"РЕФЕРАТ", "АНОТАЦІЯ", " 1. АНОТАЦІЯ ", "РЕФЕРАТ\t"};
+    private static final String[] ENDS = {"СПИСОК ЛІТЕРАТУРИ", "ПЕРЕЛІК ПОСИЛАНЬ", "СПИСОК ВИКОРИСТАНИХ ДЖЕРЕЛ",
+            "ДЖЕРЕЛА", "1.2 ВИКОРИСТАНА ЛІТЕРАТУРА", "ПЕРЕЛІК ДЖЕРЕЛ"};
+    private static final String[] BREAKS = {"\n", "\n", " \n", "\t\n \n", "\r\n", "\f\n", "\u000B\n", "  \n\n", "\n\n"};
+    private static final String[] NUMBERS = {"", "", "1", "2.", "3.1 ", " 4.2.", "10 "};
+    private static final String HEADER_LETTERS = "АБВГДЕЄЖЗИІЇЙКЛМНОПРСТУФХЦЧШЩЬЮЯ";
+    private static final String PROSE_LETTERS = "абвгдеєжзиіїйклмнопрстуфхцчшщьюя";
+
+    private final ChapterSegmenter segmenter = new ChapterSegmenter();
+
+    @Test
+    void segmentsRandomThesesLikeTheRegexChain() {
+
+        for (int seed = 0; seed < RANDOM_THESES; seed++) {
+
+            final String text = randomThesis(new Random(seed));
+
+            assertEquals(outcome(() -> legacySegment(text)), outcome(() -> segmenter.segment(text)), "seed " + seed);
+        }
+    }
+
+    @Test
+    void joinsHeadersSplitOverTwoLines() {
+
+        final String text = "РЕФЕРАТ\nтекст\nПЕРШИЙ РОЗДІЛ ЗІ ЗНАЧНО ДОВШОЮ НАЗВОЮ\nЯКА ПЕРЕНЕСЕНА\nтекст \n \nрозділу\n"
+                + "ВИСНОВКИ\nтекст\nСПИСОК ЛІТЕРАТУРИ\n";
+
+        assertEquals(outcome(() -> legacySegment(text)), outcome(() -> segmenter.segment(text)));
+    }
+
+    private String randomThesis(final Random random) {
+
+        final StringBuilder text = new StringBuilder();
+        final int parts = random.nextInt(12);
+
+        appendProse(text, random);
+
+        if (random.nextInt(10) > 0) {
+
+            text.append(pick(random, BREAKS)).append(pick(random, NUMBERS)).append(pick(random, STARTS));
+        }
+
+        for (int part = 0; part < parts; part++) {
+
+            text.append(pick(random, BREAKS));
+
+            switch (random.nextInt(6)) {
+                case 0, 1 -> appendHeader(text, random);
+                case 2 -> appendSplitHeader(text, random);
+                case 3 -> text.append(pick(random, NUMBERS)).append(pick(random, ENDS));
+                default -> appendProse(text, random);
+            }
+        }
+
+        if (random.nextBoolean()) {
+
+            text.append(pick(random, BREAKS)).append(pick(random, ENDS)).append(pick(random, BREAKS));
+            appendProse(text, random);
+        }
+
+        return text.toString();
+    }
+
+    private void appendHeader(final StringBuilder text, final Random random) {
+
+        text.append(pick(random, NUMBERS));
+
+        final int words = 1 + random.nextInt(3);
+
+        for (int word = 0; word < words; word++) {
+
+            if (word > 0) text.append(random.nextInt(4) == 0 ? ", " : " ");
+
+            appendWord(text, random, HEADER_LETTERS, 3 + random.nextInt(8));
+        }
+    }
+
+    /**
+     * A first line of at least 30 header characters and a second of at least 5, sometimes followed by prose on
+     * the same line, and sometimes one character short of either limit.
+     */
+    private void appendSplitHeader(final StringBuilder text, final Random random) {
+
+        final int firstLine = 28 + random.nextInt(6);
+        final int start = text.length();
+
+        while (text.length() - start < firstLine) {
+
+            appendWord(text, random, HEADER_LETTERS, 2 + random.nextInt(8));
+            text.append(random.nextInt(5) == 0 ? ", " : " ");
+        }
+
+        text.setLength(start + firstLine);
+        text.append('\n');
+        appendWord(text, random, HEADER_LETTERS, 4 + random.nextInt(4));
+
+        if (random.nextBoolean()) {
+
+            text.append(' ');
+            appendWord(text, random, PROSE_LETTERS, 3 + random.nextInt(5));
+        }
+    }
+
+    private void appendProse(final StringBuilder text, final Random random) {
+
+        final int words = random.nextInt(8);
+
+        for (int word = 0; word < words; word++) {
+
+            if (word > 0) text.append(random.nextInt(6) == 0 ? ". " : " ");
+
+            appendWord(text, random, random.nextInt(10) == 0 ? HEADER_LETTERS : PROSE_LETTERS, 1 + random.nextInt(9));
+        }
+    }
+
+    private void appendWord(final StringBuilder text, final Random random, final String letters, final int length) {
+
+        for (int index = 0; index < length; index++) {
+
+            text.append(letters.charAt(random.nextInt(letters.length())));
+        }
+    }
+
+    private String pick(final Random random, final String[] values) {
+
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * @return the chapters as a list of entries, so that their order is compared too, or the type of the exception
+     * thrown; the messages of {@code String} and {@code StringBuilder} index errors are worded differently
+     */
+    private Object outcome(final Segmentation segmentation) {
+
+        try {
+
+            return List.copyOf(segmentation.segment().entrySet());
+
+        } catch (RuntimeException e) {
+
+            return e.getClass();
+        }
+    }
+
+    /**
+     * The chain of {@code cropToStart}, {@code cropToEnd}, {@code cleanUpBreaks}, {@code joinSplitHeaders},
+     * {@code getHeaders} and {@code getChapters} the segmenter replaced.
+     */
+    private Map<String, String> legacySegment(final String text) {
+
+        final Matcher startMatcher = DOCUMENT_START_PATTERN.matcher(text);
+
+        if (!startMatcher.find()) throw new IllegalArgumentException("No document start found");
+
+        final String legacyText = text.substring(startMatcher.start());
+        final Matcher endMatcher = DOCUMENT_END_PATTERN.matcher(legacyText);
+        int lastMatchIndex = 0;
+
+        while (endMatcher.find()) {
+
+            lastMatchIndex = endMatcher.end();
+        }
+
+        final String body = legacyText.substring(0, lastMatchIndex)
+                .replaceAll("(\\s\n)+", "\n")
+                .replaceAll(SPLIT_HEADER_REGEX, SPLIT_HEADER_REPLACEMENT);
+
+        final Map<String, Integer> headers = new LinkedHashMap<>();
+        final Matcher headerMatcher = HEADER_PATTERN.matcher(body);
+
+        while (headerMatcher.find()) {
+
+            headers.put(headerMatcher.group().replace("\n", "").trim(), headerMatcher.start());
+        }
+
+        final List<String> headerList = new ArrayList<>(headers.keySet());
+        final List<Integer> headerIndexes = new ArrayList<>(headers.values());
+        final Map<String, String> result = new LinkedHashMap<>();
+
+        for (int index = 0; index < headerIndexes.size() - 1; index++) {
+
+            result.put(headerList.get(index), body.substring(headerIndexes.get(index), headerIndexes.get(index + 1)).replace("\n", " "));
+        }
+
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface Segmentation {
+
+        Map<String, String> segment();
+    }
+}